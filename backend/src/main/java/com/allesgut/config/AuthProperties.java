@@ -0,0 +1,29 @@
+package com.allesgut.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "auth")
+@Data
+public class AuthProperties {
+    private Codes codes = new Codes();
+    private Purge purge = new Purge();
+
+    @Data
+    public static class Codes {
+        // Phones with active codes held in memory; codes beyond are verified against the table
+        private int maxPhones = 100_000;
+    }
+
+    @Data
+    public static class Purge {
+        private Duration interval = Duration.ofMinutes(1);
+        // Rows deleted per statement; each statement commits on its own, so locks stay short
+        private int batchSize = 1_000;
+        private int maxBatchesPerRun = 20;
+    }
+}
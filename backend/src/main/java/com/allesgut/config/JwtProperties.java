@@ -11,6 +11,8 @@ import org.springframework.context.annotation.Configuration;
 public class JwtProperties {
     private String secret;
     private Long expiration;
+    // Recently verified tokens kept by JwtService
+    private int verifiedCacheSize = 10_000;
 
     @PostConstruct
     public void validateSecret() {
@@ -0,0 +1,86 @@
+package com.allesgut.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "notifications")
+@Data
+public class NotificationProperties {
+    private Writer writer = new Writer();
+    private Aggregation aggregation = new Aggregation();
+    private Unread unread = new Unread();
+    private Stream stream = new Stream();
+    private Actors actors = new Actors();
+    private Retention retention = new Retention();
+
+    @Data
+    public static class Writer {
+        // Directory of the local outbox journal; must not be shared between running instances
+        private String outboxDirectory = "data/notification-outbox";
+        private int queueCapacity = 10_000;
+        private int batchSize = 500;
+        private int segmentSize = 10_000;
+    }
+
+    @Data
+    public static class Aggregation {
+        // Types whose events for the same recipient and related id are folded into one row
+        private List<String> types = List.of("like", "follow");
+        private Duration window = Duration.ofHours(24);
+        // Identical events (recipient, type, actor, related id) within this window are dropped
+        private Duration dedupWindow = Duration.ofMinutes(10);
+        private int dedupCapacity = 100_000;
+    }
+
+    @Data
+    public static class Unread {
+        private int cacheSize = 100_000;
+        // Bounds how long a node can serve a count that another node has changed
+        private Duration cacheTtl = Duration.ofSeconds(10);
+        private int reconcileBatchSize = 500;
+    }
+
+    @Data
+    public static class Actors {
+        private int cacheSize = 50_000;
+        // Bounds how long a changed nickname or avatar can show on another node
+        private Duration cacheTtl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Retention {
+        // Monthly partitions older than this many months are dropped
+        private int months = 12;
+        private int partitionsAhead = 3;
+        // Notification lists only read partitions this recent
+        private Duration listWindow = Duration.ofDays(90);
+        // Most notifications kept per user; 0 keeps all
+        private int maxPerUser = 0;
+        private int trimBatchSize = 500;
+        // Rows copied per run while moving the old table into partitions
+        private int migrationBatchSize = 5_000;
+    }
+
+    @Data
+    public static class Stream {
+        // Open event streams per node; further clients are refused and fall back to reconnecting later
+        private int maxConnections = 10_000;
+        // A user's oldest stream is closed when another one is opened above this
+        private int maxConnectionsPerUser = 5;
+        // Streams are closed after this and reopened by the client with Last-Event-ID
+        private Duration timeout = Duration.ofMinutes(30);
+        // Keeps idle connections from being dropped by proxies
+        private Duration heartbeatInterval = Duration.ofSeconds(25);
+        // Most notifications sent on resume; past that the client is told to reload the list
+        private int replayLimit = 100;
+        private int dispatchThreads = 2;
+        private int dispatchQueueCapacity = 10_000;
+        // Relays notifications to the streams of other nodes through Postgres LISTEN/NOTIFY
+        private boolean broadcast = true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.allesgut.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Buckets kept per limiter; idle buckets are dropped once they are full again
+    private int maxKeys = 100_000;
+    private Duration sweepInterval = Duration.ofSeconds(10);
+    private Sms sms = new Sms();
+
+    @Data
+    public static class Sms {
+        private Limit sendPerPhone = new Limit(1, Duration.ofMinutes(1));
+        private Limit sendPerIp = new Limit(10, Duration.ofSeconds(30));
+        // Codes live 5 minutes, so this allows a handful of guesses per code
+        private Limit verifyPerPhone = new Limit(5, Duration.ofMinutes(1));
+        private Limit verifyPerIp = new Limit(20, Duration.ofSeconds(5));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        // Requests allowed in a burst
+        private int capacity;
+        // Time to earn back one request
+        private Duration interval;
+    }
+}
@@ -0,0 +1,35 @@
+package com.allesgut.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "sms")
+@Data
+public class SmsProperties {
+    // Name of the SmsProvider bean messages go through
+    private String provider = "in-memory";
+    private Dispatch dispatch = new Dispatch();
+    private InMemory inMemory = new InMemory();
+
+    @Data
+    public static class Dispatch {
+        private int queueCapacity = 10_000;
+        private int workers = 4;
+        // Calls in flight to the provider at once, whatever the number of workers
+        private int maxConcurrency = 4;
+        private int maxAttempts = 4;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class InMemory {
+        // Simulated provider round trip, for benchmarks
+        private Duration latency = Duration.ZERO;
+        private int capacity = 1_000;
+    }
+}
@@ -0,0 +1,53 @@
+package com.allesgut.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+@Data
+public class StorageProperties {
+    // "oss" or "local"
+    private String backend = "oss";
+    // Lifetime of pre-signed upload URLs
+    private Duration presignTtl = Duration.ofMinutes(15);
+    private Local local = new Local();
+    private Multipart multipart = new Multipart();
+    private Derivatives derivatives = new Derivatives();
+
+    @Data
+    public static class Derivatives {
+        // Widths of the downscaled copies made of every uploaded image; none is wider than the original
+        private List<Integer> widths = List.of(360, 720, 1080);
+        // 0 means one worker per core; each decodes a whole image, so the count also bounds memory
+        private int workers = 0;
+        private int queueCapacity = 100;
+        private float jpegQuality = 0.82f;
+        // Larger images are not decoded at all
+        private long maxPixels = 16_000_000;
+    }
+
+    @Data
+    public static class Multipart {
+        // Every part but the last has this size; object stores need at least 100KB (OSS) or 5MB (S3)
+        private long partSize = 5 * 1024 * 1024;
+        // Parts streamed to the store at once by this node; more wait in the queue
+        private int workers = 16;
+        private int queueCapacity = 64;
+        // Unfinished uploads older than this are aborted and their parts dropped
+        private Duration expireAfter = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class Local {
+        private String root = "data/storage";
+        // Public base URL of this application, used for object and upload URLs
+        private String baseUrl = "http://localhost:8080";
+        // Signs upload URLs; if empty a random key is used, valid until restart and on this node only
+        private String signingSecret = "";
+    }
+}
@@ -7,8 +7,10 @@ import com.allesgut.dto.response.LoginResponse;
 import com.allesgut.dto.response.UserDto;
 import com.allesgut.entity.User;
 import com.allesgut.repository.UserRepository;
+import com.allesgut.security.AuthRateLimiter;
 import com.allesgut.service.AuthService;
 import com.allesgut.service.SmsService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -26,15 +28,20 @@ public class AuthController {
     private final SmsService smsService;
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final AuthRateLimiter rateLimiter;
 
     @PostMapping("/sms/send")
-    public ResponseEntity<ApiResponse<Void>> sendSms(@Valid @RequestBody SendSmsRequest request) {
+    public ResponseEntity<ApiResponse<Void>> sendSms(@Valid @RequestBody SendSmsRequest request,
+                                                     HttpServletRequest servletRequest) {
+        rateLimiter.checkSmsSend(request.phone(), servletRequest.getRemoteAddr());
         smsService.sendVerificationCode(request.phone());
         return ResponseEntity.ok(ApiResponse.success("验证码已发送"));
     }
 
     @PostMapping("/sms/verify")
-    public ResponseEntity<ApiResponse<LoginResponse>> verifySms(@Valid @RequestBody VerifySmsRequest request) {
+    public ResponseEntity<ApiResponse<LoginResponse>> verifySms(@Valid @RequestBody VerifySmsRequest request,
+                                                                HttpServletRequest servletRequest) {
+        rateLimiter.checkSmsVerify(request.phone(), servletRequest.getRemoteAddr());
         LoginResponse response = authService.verifyAndLogin(request.phone(), request.code());
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -3,8 +3,9 @@ package com.allesgut.controller;
 import com.allesgut.dto.request.CreateCommentRequest;
 import com.allesgut.dto.response.ApiResponse;
 import com.allesgut.dto.response.CommentDto;
-import com.allesgut.dto.response.PageResponse;
+import com.allesgut.dto.response.CursorPageResponse;
 import com.allesgut.service.CommentService;
+import com.allesgut.service.CommentSort;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -32,24 +33,32 @@ public class CommentsController {
     }
 
     @GetMapping("/api/posts/{postId}/comments")
-    public ResponseEntity<ApiResponse<PageResponse<CommentDto>>> getCommentsByPost(
+    public ResponseEntity<ApiResponse<CursorPageResponse<CommentDto>>> getCommentsByPost(
             @PathVariable UUID postId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "new") String sort,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int limit,
             Authentication authentication) {
-        int safePage = Math.max(0, page);
         int safeLimit = Math.max(1, Math.min(100, limit));
 
-        UUID currentUserId = authentication != null && authentication.isAuthenticated()
-                && !"anonymousUser".equals(authentication.getName())
-                ? UUID.fromString(authentication.getName())
-                : null;
-
-        PageResponse<CommentDto> comments = commentService.getCommentsByPost(
-                postId, currentUserId, safePage, safeLimit);
+        CursorPageResponse<CommentDto> comments = commentService.getCommentsByPost(
+                postId, getCurrentUserId(authentication), CommentSort.from(sort), cursor, safeLimit);
         return ResponseEntity.ok(ApiResponse.success(comments));
     }
 
+    @GetMapping("/api/comments/{id}/replies")
+    public ResponseEntity<ApiResponse<CursorPageResponse<CommentDto>>> getReplies(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        int safeLimit = Math.max(1, Math.min(100, limit));
+
+        CursorPageResponse<CommentDto> replies = commentService.getReplies(
+                id, getCurrentUserId(authentication), cursor, safeLimit);
+        return ResponseEntity.ok(ApiResponse.success(replies));
+    }
+
     @DeleteMapping("/api/comments/{id}")
     public ResponseEntity<ApiResponse<Void>> deleteComment(
             @PathVariable UUID id,
@@ -76,4 +85,11 @@ public class CommentsController {
         commentService.unlikeComment(id, userId);
         return ResponseEntity.ok(ApiResponse.success("Comment unliked"));
     }
+
+    private UUID getCurrentUserId(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getName())
+                ? UUID.fromString(authentication.getName())
+                : null;
+    }
 }
@@ -0,0 +1,91 @@
+package com.allesgut.controller;
+
+import com.allesgut.dto.request.InitiateMultipartUploadRequest;
+import com.allesgut.dto.response.ApiResponse;
+import com.allesgut.dto.response.MultipartUploadDto;
+import com.allesgut.service.MediaKind;
+import com.allesgut.service.MultipartUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Resumable uploads for large files: initiate, PUT the parts (in parallel, in any order), then complete.
+// After a dropped connection the client reads the upload's status and sends only the missing parts.
+@RestController
+@RequestMapping("/api/upload/multipart")
+@RequiredArgsConstructor
+public class MultipartUploadController {
+
+    private final MultipartUploadService multipartUploadService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<MultipartUploadDto>> initiate(
+            @Valid @RequestBody InitiateMultipartUploadRequest request,
+            Authentication authentication) {
+        UUID userId = UUID.fromString(authentication.getName());
+        MultipartUploadDto upload = multipartUploadService.initiate(MediaKind.fromPath(request.kind()),
+                request.contentType(), request.size(), request.fileName(), userId);
+        return ResponseEntity.ok(ApiResponse.success(upload));
+    }
+
+    // The part is the raw request body; the request is async, so it holds no servlet thread while stored
+    @PutMapping("/{uploadId}/parts/{partNumber}")
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Integer>>>> uploadPart(
+            @PathVariable UUID uploadId,
+            @PathVariable int partNumber,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        if (request.getContentLengthLong() < 0) {
+            throw new IllegalArgumentException("Content-Length is required");
+        }
+        UUID userId = UUID.fromString(authentication.getName());
+        return multipartUploadService.uploadPart(uploadId, partNumber, request.getInputStream(),
+                        request.getContentLengthLong(), userId)
+                .<ResponseEntity<ApiResponse<Map<String, Integer>>>>thenApply(part ->
+                        ResponseEntity.ok(ApiResponse.success(Map.of("partNumber", part))))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof UncheckedIOException e) {
+                        return ResponseEntity.badRequest()
+                                .body(ApiResponse.error("Failed to upload part: " + e.getCause().getMessage()));
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<MultipartUploadDto>> status(
+            @PathVariable UUID uploadId,
+            Authentication authentication) {
+        UUID userId = UUID.fromString(authentication.getName());
+        return ResponseEntity.ok(ApiResponse.success(multipartUploadService.status(uploadId, userId)));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<Map<String, String>>> complete(
+            @PathVariable UUID uploadId,
+            Authentication authentication) throws IOException {
+        UUID userId = UUID.fromString(authentication.getName());
+        String url = multipartUploadService.complete(uploadId, userId);
+        return ResponseEntity.ok(ApiResponse.success(Map.of("url", url)));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> abort(
+            @PathVariable UUID uploadId,
+            Authentication authentication) {
+        UUID userId = UUID.fromString(authentication.getName());
+        multipartUploadService.abort(uploadId, userId);
+        return ResponseEntity.ok(ApiResponse.success("Upload aborted"));
+    }
+}
@@ -4,10 +4,13 @@ import com.allesgut.dto.response.ApiResponse;
 import com.allesgut.dto.response.NotificationDto;
 import com.allesgut.dto.response.PageResponse;
 import com.allesgut.service.NotificationService;
+import com.allesgut.service.NotificationStreamHub;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.UUID;
@@ -18,6 +21,7 @@ import java.util.UUID;
 public class NotificationsController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamHub notificationStreamHub;
 
     @GetMapping
     public ResponseEntity<ApiResponse<PageResponse<NotificationDto>>> getNotifications(
@@ -36,6 +40,15 @@ public class NotificationsController {
         return ResponseEntity.ok(ApiResponse.success(Map.of("count", count)));
     }
 
+    // Server-sent events of new notifications; a reconnecting client resumes after its Last-Event-ID
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication) {
+        UUID userId = UUID.fromString(authentication.getName());
+        return notificationStreamHub.subscribe(userId, lastEventId);
+    }
+
     @PutMapping("/{id}/read")
     public ResponseEntity<ApiResponse<Void>> markAsRead(
             @PathVariable UUID id,
@@ -0,0 +1,153 @@
+package com.allesgut.controller;
+
+import com.allesgut.dto.response.ApiResponse;
+import com.allesgut.service.LocalObjectStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Optional;
+
+// Serves and receives the objects of the local storage backend. Uploads go to pre-signed URLs whose
+// signature authorizes the request, so no token is needed; objects are public like those on OSS.
+@RestController
+@RequestMapping("/api/storage")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class StorageController {
+
+    private static final String PATH_PREFIX = "/api/storage/";
+    // Object keys are never reused for other content
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat's sendfile: the connector hands the file to FileChannel.transferTo on the socket itself
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalObjectStorage storage;
+
+    // Supports a single byte range, which is what players send when seeking in a video
+    @RequestMapping(value = "/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void get(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<LocalObjectStorage.LocalFile> found = storage.file(objectKey(request));
+        if (found.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        LocalObjectStorage.LocalFile file = found.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long start = 0;
+        long end = file.size() - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, file)) {
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(file.size());
+                    end = ranges.get(0).getRangeEnd(file.size());
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.size());
+            }
+        }
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || end < start) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @PutMapping("/**")
+    public ResponseEntity<ApiResponse<Void>> put(
+            @RequestParam String contentType,
+            @RequestParam long maxSize,
+            @RequestParam long expires,
+            @RequestParam String signature,
+            HttpServletRequest request) throws IOException {
+        String key = objectKey(request);
+        if (!storage.verifyPut(key, contentType, maxSize, expires, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Invalid or expired upload URL"));
+        }
+        if (!contentType.equals(request.getContentType())) {
+            throw new IllegalArgumentException("Content-Type must be " + contentType);
+        }
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            throw new IllegalArgumentException("Content-Length is required");
+        }
+        if (length > maxSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(ApiResponse.error("File exceeds the allowed size"));
+        }
+
+        // An upload URL writes its object once
+        if (storage.stat(key).isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Upload URL was already used"));
+        }
+
+        storage.put(key, request.getInputStream(), length, contentType);
+        return ResponseEntity.ok(ApiResponse.success("Uploaded"));
+    }
+
+    // A range is only applied to the version the client already has part of; dates are not compared
+    private static boolean ifRangeMatches(HttpServletRequest request, LocalObjectStorage.LocalFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(file.etag());
+    }
+
+    // Unreadable ranges are ignored and the whole object is sent
+    private static List<HttpRange> parseRanges(String header) {
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private static String objectKey(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length() + PATH_PREFIX.length());
+    }
+}
@@ -1,7 +1,13 @@
 package com.allesgut.controller;
 
+import com.allesgut.dto.request.CompleteUploadRequest;
+import com.allesgut.dto.request.PresignUploadRequest;
 import com.allesgut.dto.response.ApiResponse;
+import com.allesgut.dto.response.PresignedUploadDto;
 import com.allesgut.service.FileUploadService;
+import com.allesgut.service.MediaKind;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -46,4 +52,49 @@ public class UploadController {
                     .body(ApiResponse.error("Failed to upload video: " + e.getMessage()));
         }
     }
+
+    // Returns a short-lived URL the client uploads the file to directly, then calls /complete
+    @PostMapping("/presign")
+    public ResponseEntity<ApiResponse<PresignedUploadDto>> presign(
+            @Valid @RequestBody PresignUploadRequest request,
+            Authentication authentication) {
+        UUID userId = UUID.fromString(authentication.getName());
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.fromPath(request.kind()),
+                request.contentType(), request.size(), request.fileName(), userId);
+        return ResponseEntity.ok(ApiResponse.success(upload));
+    }
+
+    @PostMapping("/complete")
+    public ResponseEntity<ApiResponse<Map<String, String>>> complete(
+            @Valid @RequestBody CompleteUploadRequest request,
+            Authentication authentication) throws IOException {
+        UUID userId = UUID.fromString(authentication.getName());
+        String url = fileUploadService.complete(request.objectKey(), userId);
+        return ResponseEntity.ok(ApiResponse.success(Map.of("url", url)));
+    }
+
+    // Takes the file as the raw request body and streams it to storage as it arrives, without
+    // multipart parsing or temp files. Content-Length is required; X-File-Name supplies the extension.
+    // A client sending X-Content-SHA256 skips the storage write when the same file was uploaded before.
+    @PutMapping("/{kind}")
+    public ResponseEntity<ApiResponse<Map<String, String>>> uploadStream(
+            @PathVariable String kind,
+            @RequestHeader(value = "X-File-Name", required = false) String fileName,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String sha256,
+            HttpServletRequest request,
+            Authentication authentication) {
+        MediaKind mediaKind = MediaKind.fromPath(kind);
+        if (request.getContentLengthLong() < 0) {
+            throw new IllegalArgumentException("Content-Length is required");
+        }
+        try {
+            UUID userId = UUID.fromString(authentication.getName());
+            String url = fileUploadService.upload(mediaKind, request.getInputStream(),
+                    request.getContentLengthLong(), request.getContentType(), fileName, userId, sha256);
+            return ResponseEntity.ok(ApiResponse.success(Map.of("url", url)));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to upload " + kind + ": " + e.getMessage()));
+        }
+    }
 }
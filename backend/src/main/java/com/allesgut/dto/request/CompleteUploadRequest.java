@@ -0,0 +1,8 @@
+package com.allesgut.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record CompleteUploadRequest(
+        @NotBlank(message = "Object key is required")
+        String objectKey
+) {}
@@ -0,0 +1,17 @@
+package com.allesgut.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+public record PresignUploadRequest(
+        @NotBlank(message = "Kind is required")
+        String kind,
+
+        @NotBlank(message = "Content type is required")
+        String contentType,
+
+        @Positive(message = "Size must be positive")
+        long size,
+
+        String fileName
+) {}
@@ -14,6 +14,7 @@ public record CommentDto(
         Boolean isLiked,
         List<UserDto> mentions,
         List<CommentDto> replies,
+        Integer replyCount,
         LocalDateTime createdAt,
         LocalDateTime updatedAt
 ) {}
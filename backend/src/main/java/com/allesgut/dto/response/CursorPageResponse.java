@@ -0,0 +1,21 @@
+package com.allesgut.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> data;
+    private int limit;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public static <T> CursorPageResponse<T> of(List<T> data, int limit, String nextCursor) {
+        return new CursorPageResponse<>(data, limit, nextCursor, nextCursor != null);
+    }
+}
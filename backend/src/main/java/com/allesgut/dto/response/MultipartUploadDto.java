@@ -0,0 +1,13 @@
+package com.allesgut.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record MultipartUploadDto(
+        UUID uploadId,
+        String objectKey,
+        long partSize,
+        int partCount,
+        // Part numbers received so far; a resumed upload sends only the others
+        List<Integer> uploadedParts
+) {}
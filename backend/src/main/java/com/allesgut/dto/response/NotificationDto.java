@@ -6,7 +6,8 @@ import java.util.UUID;
 public record NotificationDto(
         UUID id,
         String type,
-        UserDto actor,
+        PublicUserDto actor,
+        Integer actorCount,
         UUID relatedId,
         String content,
         boolean isRead,
@@ -2,6 +2,7 @@ package com.allesgut.dto.response;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public record PostPublicDto(
@@ -12,6 +13,9 @@ public record PostPublicDto(
         String mediaType,
         List<String> mediaUrls,
         String coverUrl,
+        // Smaller copies of the images above: original URL -> width -> URL; an image without any is
+        // shown at full size
+        Map<String, Map<Integer, String>> thumbnails,
         List<String> tags,
         Integer likesCount,
         Integer commentsCount,
@@ -0,0 +1,12 @@
+package com.allesgut.dto.response;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record PresignedUploadDto(
+        String uploadUrl,
+        String objectKey,
+        // Headers the PUT must carry exactly, as they are part of the signature
+        Map<String, String> headers,
+        Instant expiresAt
+) {}
@@ -30,6 +30,13 @@ public class Comment {
     @Column(name = "parent_id")
     private UUID parentId;
 
+    @Column(name = "root_id", updatable = false)
+    private UUID rootId;
+
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Integer depth = 0;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
@@ -37,6 +44,11 @@ public class Comment {
     @Column(name = "likes_count", nullable = false)
     private Integer likesCount = 0;
 
+    // Maintained with atomic UPDATEs in CommentRepository, never written back from the entity
+    @Builder.Default
+    @Column(name = "reply_count", nullable = false, updatable = false)
+    private Integer replyCount = 0;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,33 @@
+package com.allesgut.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "image_derivatives")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(ImageDerivativeId.class)
+public class ImageDerivative {
+
+    @Id
+    @Column(name = "source_url", length = 500)
+    private String sourceUrl;
+
+    @Id
+    @Column(name = "width")
+    private int width;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
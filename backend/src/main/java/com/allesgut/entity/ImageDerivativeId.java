@@ -0,0 +1,15 @@
+package com.allesgut.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageDerivativeId implements Serializable {
+    private String sourceUrl;
+    private int width;
+}
@@ -0,0 +1,45 @@
+package com.allesgut.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "multipart_uploads")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MultipartUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    // The object store's id of the multipart upload
+    @Column(name = "storage_upload_id", nullable = false)
+    private String storageUploadId;
+
+    @Column(name = "content_type", nullable = false, length = 64)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "part_size", nullable = false)
+    private long partSize;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
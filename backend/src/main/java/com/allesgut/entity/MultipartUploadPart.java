@@ -0,0 +1,31 @@
+package com.allesgut.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "multipart_upload_parts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(MultipartUploadPartId.class)
+public class MultipartUploadPart {
+
+    @Id
+    @Column(name = "upload_id")
+    private UUID uploadId;
+
+    @Id
+    @Column(name = "part_number")
+    private int partNumber;
+
+    @Column(nullable = false, length = 128)
+    private String etag;
+
+    @Column(nullable = false)
+    private long size;
+}
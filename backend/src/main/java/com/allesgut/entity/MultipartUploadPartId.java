@@ -0,0 +1,16 @@
+package com.allesgut.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartUploadPartId implements Serializable {
+    private UUID uploadId;
+    private int partNumber;
+}
@@ -3,6 +3,7 @@ package com.allesgut.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -33,9 +34,22 @@ public class Notification {
     @Column(name = "related_id")
     private UUID relatedId;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // Name of the NotificationTemplate the text is rendered from
+    @Column(length = 32)
+    private String template;
+
+    // Only set for notifications without a template
+    @Column(columnDefinition = "TEXT")
     private String content;
 
+    // Folded in by NotificationWriter when events of the same group arrive within the aggregation window
+    @Builder.Default
+    @Column(name = "actor_count", nullable = false)
+    private Integer actorCount = 1;
+
+    @Column(name = "recent_actor_ids", columnDefinition = "uuid[]")
+    private UUID[] recentActorIds;
+
     @Column(name = "is_read", nullable = false)
     private boolean isRead = false;
 
@@ -46,4 +60,9 @@ public class Notification {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Drawn from a sequence when the row is written and whenever an event is folded into it
+    @Generated
+    @Column(name = "write_seq", insertable = false, updatable = false)
+    private Long writeSeq;
 }
@@ -0,0 +1,34 @@
+package com.allesgut.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "notification_states")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationState {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Builder.Default
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount = 0;
+
+    // Every notification whose last activity is not after this instant counts as read
+    @Column(name = "last_read_at")
+    private LocalDateTime lastReadAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.allesgut.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "token_revocations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocation {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    // Tokens of the user issued before this instant are rejected
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(nullable = false, length = 32)
+    private String reason;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
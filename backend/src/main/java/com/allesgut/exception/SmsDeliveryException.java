@@ -0,0 +1,15 @@
+package com.allesgut.exception;
+
+import lombok.Getter;
+
+@Getter
+public class SmsDeliveryException extends RuntimeException {
+
+    // False when sending again cannot help, such as a rejected phone number
+    private final boolean retryable;
+
+    public SmsDeliveryException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+}
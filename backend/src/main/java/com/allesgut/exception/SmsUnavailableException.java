@@ -0,0 +1,7 @@
+package com.allesgut.exception;
+
+public class SmsUnavailableException extends RuntimeException {
+    public SmsUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.allesgut.exception;
+
+public class TooManyConnectionsException extends RuntimeException {
+    public TooManyConnectionsException(String message) {
+        super(message);
+    }
+}
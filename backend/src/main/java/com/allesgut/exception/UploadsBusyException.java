@@ -0,0 +1,7 @@
+package com.allesgut.exception;
+
+public class UploadsBusyException extends RuntimeException {
+    public UploadsBusyException(String message) {
+        super(message);
+    }
+}
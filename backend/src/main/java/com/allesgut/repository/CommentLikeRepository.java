@@ -5,10 +5,13 @@ import com.allesgut.entity.CommentLikeId;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CommentLikeRepository extends JpaRepository<CommentLike, CommentLikeId> {
     boolean existsByUserIdAndCommentId(UUID userId, UUID commentId);
     void deleteByUserIdAndCommentId(UUID userId, UUID commentId);
+
+    List<CommentLike> findByUserIdAndCommentIdIn(UUID userId, List<UUID> commentIds);
 }
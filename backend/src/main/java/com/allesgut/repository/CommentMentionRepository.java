@@ -3,6 +3,9 @@ package com.allesgut.repository;
 import com.allesgut.entity.CommentMention;
 import com.allesgut.entity.CommentMentionId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +15,13 @@ import java.util.UUID;
 public interface CommentMentionRepository extends JpaRepository<CommentMention, CommentMentionId> {
     List<CommentMention> findByCommentId(UUID commentId);
     List<CommentMention> findByUserId(UUID userId);
+
+    List<CommentMention> findByCommentIdIn(List<UUID> commentIds);
+
+    // Inserts all mention rows of a comment in one statement; ids without a matching user are skipped
+    @Modifying
+    @Query(value = "insert into comment_mentions (comment_id, user_id) " +
+            "select :commentId, u.id from users u where u.id in (:userIds) " +
+            "on conflict do nothing", nativeQuery = true)
+    int insertMentions(@Param("commentId") UUID commentId, @Param("userIds") List<UUID> userIds);
 }
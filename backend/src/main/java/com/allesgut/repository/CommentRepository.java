@@ -4,8 +4,12 @@ import com.allesgut.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,4 +20,92 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
     List<Comment> findByParentIdOrderByCreatedAtAsc(UUID parentId);
     long countByPostId(UUID postId);
     boolean existsByIdAndUserId(UUID id, UUID userId);
+
+    @Query(value = "select * from comments c " +
+            "where c.post_id = :postId and c.parent_id is null " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findTopLevelByPostId(@Param("postId") UUID postId, @Param("limit") int limit);
+
+    @Query(value = "select * from comments c " +
+            "where c.post_id = :postId and c.parent_id is null " +
+            "and (c.created_at, c.id) > (:createdAt, :id) " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findTopLevelByPostIdAfter(@Param("postId") UUID postId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") UUID id,
+                                            @Param("limit") int limit);
+
+    @Query(value = "select * from comments c " +
+            "where c.post_id = :postId and c.parent_id is null " +
+            "order by c.likes_count desc, c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findHotTopLevelByPostId(@Param("postId") UUID postId, @Param("limit") int limit);
+
+    // The plain upper bound on likes_count lets the index scan start at the cursor; the row comparison
+    // alone is not usable as an index condition
+    @Query(value = "select * from comments c " +
+            "where c.post_id = :postId and c.parent_id is null " +
+            "and c.likes_count <= :likesCount " +
+            "and (c.likes_count < :likesCount " +
+            "     or (c.likes_count = :likesCount and (c.created_at, c.id) > (:createdAt, :id))) " +
+            "order by c.likes_count desc, c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findHotTopLevelByPostIdAfter(@Param("postId") UUID postId,
+                                               @Param("likesCount") int likesCount,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") UUID id,
+                                               @Param("limit") int limit);
+
+    @Query(value = "select * from comments c " +
+            "where c.parent_id = :parentId " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findRepliesByParentId(@Param("parentId") UUID parentId, @Param("limit") int limit);
+
+    @Query(value = "select c.id as id, c.likes_count as likesCount from comments c where c.id in (:ids)",
+            nativeQuery = true)
+    List<CommentLikesCountProjection> findLikesCountsByIdIn(@Param("ids") List<UUID> ids);
+
+    @Query(value = "select * from comments c " +
+            "where c.parent_id = :parentId " +
+            "and (c.created_at, c.id) > (:createdAt, :id) " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findRepliesByParentIdAfter(@Param("parentId") UUID parentId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") UUID id,
+                                             @Param("limit") int limit);
+
+    @Query(value = "select * from comments c " +
+            "where c.root_id = :rootId " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findRepliesByRootId(@Param("rootId") UUID rootId, @Param("limit") int limit);
+
+    @Query(value = "select * from comments c " +
+            "where c.root_id = :rootId " +
+            "and (c.created_at, c.id) > (:createdAt, :id) " +
+            "order by c.created_at, c.id limit :limit", nativeQuery = true)
+    List<Comment> findRepliesByRootIdAfter(@Param("rootId") UUID rootId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") UUID id,
+                                           @Param("limit") int limit);
+
+    @Query(value = "select c.* from comments c " +
+            "join (select r.id, row_number() over (partition by r.root_id order by r.created_at, r.id) as rn " +
+            "      from comments r where r.root_id in (:rootIds)) ranked on ranked.id = c.id " +
+            "where ranked.rn <= :perRoot " +
+            "order by c.root_id, c.created_at, c.id", nativeQuery = true)
+    List<Comment> findReplyPreviewsByRootIds(@Param("rootIds") List<UUID> rootIds,
+                                             @Param("perRoot") int perRoot);
+
+    @Modifying
+    @Query(value = "with recursive ancestors as (" +
+            "select c.id, c.parent_id from comments c where c.id = :parentId " +
+            "union all " +
+            "select c.id, c.parent_id from comments c join ancestors a on c.id = a.parent_id) " +
+            "update comments set reply_count = greatest(reply_count + :delta, 0) " +
+            "where id in (select id from ancestors)", nativeQuery = true)
+    int adjustReplyCountOfAncestors(@Param("parentId") UUID parentId, @Param("delta") int delta);
+
+    interface CommentLikesCountProjection {
+        UUID getId();
+
+        Integer getLikesCount();
+    }
 }
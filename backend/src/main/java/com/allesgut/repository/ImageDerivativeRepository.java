@@ -0,0 +1,24 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.ImageDerivative;
+import com.allesgut.entity.ImageDerivativeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, ImageDerivativeId> {
+    List<ImageDerivative> findBySourceUrlIn(Collection<String> sourceUrls);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO image_derivatives (source_url, width, url) VALUES (:sourceUrl, :width, :url) " +
+            "ON CONFLICT (source_url, width) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("sourceUrl") String sourceUrl, @Param("width") int width, @Param("url") String url);
+}
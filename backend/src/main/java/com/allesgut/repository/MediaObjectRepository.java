@@ -0,0 +1,25 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE media_objects SET ref_count = ref_count + 1 WHERE sha256 = :sha256", nativeQuery = true)
+    int addReference(@Param("sha256") String sha256);
+
+    // Returns the key the bytes are stored under: objectKey, or the key of an earlier upload of them
+    @Transactional
+    @Query(value = "INSERT INTO media_objects (sha256, object_key, size) VALUES (:sha256, :objectKey, :size) " +
+            "ON CONFLICT (sha256) DO UPDATE SET ref_count = media_objects.ref_count + 1 " +
+            "RETURNING object_key", nativeQuery = true)
+    String register(@Param("sha256") String sha256, @Param("objectKey") String objectKey, @Param("size") long size);
+}
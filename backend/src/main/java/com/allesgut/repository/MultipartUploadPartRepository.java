@@ -0,0 +1,28 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.MultipartUploadPart;
+import com.allesgut.entity.MultipartUploadPartId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MultipartUploadPartRepository extends JpaRepository<MultipartUploadPart, MultipartUploadPartId> {
+    List<MultipartUploadPart> findByUploadIdOrderByPartNumber(UUID uploadId);
+
+    // A part sent again replaces the earlier one, as in the object store
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO multipart_upload_parts (upload_id, part_number, etag, size) " +
+            "VALUES (:uploadId, :partNumber, :etag, :size) " +
+            "ON CONFLICT (upload_id, part_number) DO UPDATE SET etag = EXCLUDED.etag, size = EXCLUDED.size",
+            nativeQuery = true)
+    void upsert(@Param("uploadId") UUID uploadId, @Param("partNumber") int partNumber,
+                @Param("etag") String etag, @Param("size") long size);
+}
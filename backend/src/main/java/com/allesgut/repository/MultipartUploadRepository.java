@@ -0,0 +1,15 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.MultipartUpload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MultipartUploadRepository extends JpaRepository<MultipartUpload, UUID> {
+    List<MultipartUpload> findByCreatedAtBeforeOrderByCreatedAt(LocalDateTime before, Pageable pageable);
+}
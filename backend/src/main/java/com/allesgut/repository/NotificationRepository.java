@@ -4,12 +4,46 @@ import com.allesgut.entity.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
-    Page<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
+    // Most recently active first, so a group that keeps getting events stays on top and in the window.
+    // createdSince bounds created_at too, which lets Postgres skip the monthly partitions before it.
+    // Served by the (user_id, updated_at desc, id desc) index from V023.
+    @Query("select n from Notification n where n.userId = :userId and n.updatedAt > :since " +
+            "and n.createdAt > :createdSince order by n.updatedAt desc, n.id desc")
+    Page<Notification> findRecentByUserId(@Param("userId") UUID userId,
+                                          @Param("since") LocalDateTime since,
+                                          @Param("createdSince") LocalDateTime createdSince,
+                                          Pageable pageable);
+
     long countByUserIdAndIsRead(UUID userId, boolean isRead);
+
+    // Returns 1 only if the notification exists, belongs to the user and was still unread.
+    // createdSince limits the id lookup to the partitions the list can show.
+    @Modifying
+    @Query(value = "update notifications n set is_read = true " +
+            "where n.id = :id and n.created_at > :createdSince and n.user_id = :userId and n.is_read = false " +
+            "and n.updated_at > coalesce((select s.last_read_at from notification_states s " +
+            "where s.user_id = :userId), '-infinity')", nativeQuery = true)
+    int markAsRead(@Param("id") UUID id, @Param("userId") UUID userId,
+                   @Param("createdSince") LocalDateTime createdSince);
+
+    Optional<Notification> findByIdAndCreatedAtAfter(UUID id, LocalDateTime createdSince);
+
+    // Notifications written or folded into after the given write sequence, in write order
+    @Query(value = "select * from notifications n where n.user_id = :userId and n.write_seq > :writeSeq " +
+            "order by n.write_seq limit :limit", nativeQuery = true)
+    List<Notification> findWrittenAfter(@Param("userId") UUID userId,
+                                        @Param("writeSeq") long writeSeq,
+                                        @Param("limit") int limit);
 }
@@ -0,0 +1,48 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.NotificationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface NotificationStateRepository extends JpaRepository<NotificationState, UUID> {
+
+    @Query("select s.unreadCount from NotificationState s where s.userId = :userId")
+    Optional<Integer> findUnreadCount(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "update notification_states set unread_count = greatest(unread_count + :delta, 0), " +
+            "updated_at = now() where user_id = :userId", nativeQuery = true)
+    int adjustUnreadCount(@Param("userId") UUID userId, @Param("delta") int delta);
+
+    // Mark all as read: one row, regardless of how many notifications the user has
+    @Modifying
+    @Query(value = "insert into notification_states (user_id, unread_count, last_read_at) " +
+            "values (:userId, 0, :readAt) on conflict (user_id) do update set " +
+            "unread_count = 0, last_read_at = excluded.last_read_at, updated_at = now()", nativeQuery = true)
+    int markAllAsRead(@Param("userId") UUID userId, @Param("readAt") LocalDateTime readAt);
+
+    @Query(value = "select s.user_id from notification_states s " +
+            "order by s.user_id limit :limit", nativeQuery = true)
+    List<UUID> findUserIds(@Param("limit") int limit);
+
+    @Query(value = "select s.user_id from notification_states s where s.user_id > :after " +
+            "order by s.user_id limit :limit", nativeQuery = true)
+    List<UUID> findUserIdsAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+    // Recounts unread notifications for the given users; corrects any drift of the maintained counter
+    @Modifying
+    @Query(value = "update notification_states s set unread_count = (" +
+            "select count(*) from notifications n where n.user_id = s.user_id and n.is_read = false " +
+            "and n.updated_at > coalesce(s.last_read_at, '-infinity')), " +
+            "updated_at = now() where s.user_id in (:userIds)", nativeQuery = true)
+    int reconcileUnreadCounts(@Param("userIds") List<UUID> userIds);
+}
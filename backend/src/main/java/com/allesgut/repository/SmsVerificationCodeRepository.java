@@ -2,6 +2,9 @@ package com.allesgut.repository;
 
 import com.allesgut.entity.SmsVerificationCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,4 +12,10 @@ import java.util.Optional;
 @Repository
 public interface SmsVerificationCodeRepository extends JpaRepository<SmsVerificationCode, Long> {
     Optional<SmsVerificationCode> findTopByPhoneAndCodeOrderByCreatedAtDesc(String phone, String code);
+
+    // Returns 1 only for the one caller that used the code while it was unused and unexpired
+    @Modifying
+    @Query("UPDATE SmsVerificationCode c SET c.used = true " +
+            "WHERE c.id = :id AND c.used = false AND c.expiresAt > CURRENT_TIMESTAMP")
+    int markUsed(@Param("id") Long id);
 }
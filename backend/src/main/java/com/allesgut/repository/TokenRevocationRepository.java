@@ -0,0 +1,25 @@
+package com.allesgut.repository;
+
+import com.allesgut.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, UUID> {
+    List<TokenRevocation> findByUpdatedAtAfterOrderByUpdatedAt(LocalDateTime since);
+
+    @Modifying
+    @Query(value = "INSERT INTO token_revocations (user_id, not_before, reason) " +
+            "VALUES (:userId, :notBefore, :reason) " +
+            "ON CONFLICT (user_id) DO UPDATE SET not_before = EXCLUDED.not_before, reason = EXCLUDED.reason, " +
+            "updated_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    void upsert(@Param("userId") UUID userId, @Param("notBefore") LocalDateTime notBefore,
+                @Param("reason") String reason);
+}
@@ -11,5 +11,5 @@ import java.util.UUID;
 public interface UserSessionRepository extends JpaRepository<UserSession, UUID> {
     Optional<UserSession> findByToken(String token);
     void deleteByToken(String token);
-    void deleteByUserId(UUID userId);
+    long deleteByUserId(UUID userId);
 }
@@ -0,0 +1,88 @@
+package com.allesgut.security;
+
+import com.allesgut.config.RateLimitProperties;
+import com.allesgut.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throttles the SMS login endpoints per phone and per client IP before they do any database work.
+// Outcomes are counted in auth.rate_limit.requests, tagged by limit and outcome.
+@Component
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+    private final Guard smsSendPerPhone;
+    private final Guard smsSendPerIp;
+    private final Guard smsVerifyPerPhone;
+    private final Guard smsVerifyPerIp;
+
+    public AuthRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        RateLimitProperties.Sms sms = properties.getSms();
+        int maxKeys = properties.getMaxKeys();
+        this.enabled = properties.isEnabled();
+        this.smsSendPerPhone = guard("sms_send_phone", sms.getSendPerPhone(), maxKeys, meterRegistry);
+        this.smsSendPerIp = guard("sms_send_ip", sms.getSendPerIp(), maxKeys, meterRegistry);
+        this.smsVerifyPerPhone = guard("sms_verify_phone", sms.getVerifyPerPhone(), maxKeys, meterRegistry);
+        this.smsVerifyPerIp = guard("sms_verify_ip", sms.getVerifyPerIp(), maxKeys, meterRegistry);
+    }
+
+    public void checkSmsSend(String phone, String clientIp) {
+        check(smsSendPerIp, clientIp, smsSendPerPhone, phone);
+    }
+
+    public void checkSmsVerify(String phone, String clientIp) {
+        check(smsVerifyPerIp, clientIp, smsVerifyPerPhone, phone);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:PT10S}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Guard guard : List.of(smsSendPerPhone, smsSendPerIp, smsVerifyPerPhone, smsVerifyPerIp)) {
+            guard.limiter().sweep(now);
+        }
+    }
+
+    // A request rejected for its phone gives the IP token back, so hammering one limited phone does not
+    // also use up the budget of everyone behind the same IP
+    private void check(Guard ipGuard, String clientIp, Guard phoneGuard, String phone) {
+        if (!enabled) {
+            return;
+        }
+        acquire(ipGuard, clientIp);
+        try {
+            acquire(phoneGuard, phone);
+        } catch (RateLimitExceededException e) {
+            ipGuard.limiter().release(clientIp);
+            throw e;
+        }
+    }
+
+    private void acquire(Guard guard, String key) {
+        long waitNanos = guard.limiter().tryAcquire(key);
+        if (waitNanos == 0) {
+            guard.allowed().increment();
+            return;
+        }
+        guard.rejected().increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        throw new RateLimitExceededException("Too many requests, please try again later", retryAfterSeconds);
+    }
+
+    private static Guard guard(String name, RateLimitProperties.Limit limit, int maxKeys, MeterRegistry meterRegistry) {
+        RateLimiter limiter = new RateLimiter(limit, maxKeys);
+        Gauge.builder("auth.rate_limit.keys", limiter, RateLimiter::size)
+                .tag("limit", name)
+                .register(meterRegistry);
+        return new Guard(limiter,
+                meterRegistry.counter("auth.rate_limit.requests", "limit", name, "outcome", "allowed"),
+                meterRegistry.counter("auth.rate_limit.requests", "limit", name, "outcome", "rejected"));
+    }
+
+    private record Guard(RateLimiter limiter, Counter allowed, Counter rejected) {}
+}
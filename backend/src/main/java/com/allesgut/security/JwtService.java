@@ -4,23 +4,48 @@ import com.allesgut.config.JwtProperties;
 import com.allesgut.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class JwtService {
 
     private final JwtProperties jwtProperties;
+    // Built once; both are immutable and thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    // Recently verified tokens by SHA-256 of the token, so repeat requests of a session skip parsing
+    // and signature checks. Only a hash is kept, never the token itself.
+    private final Map<String, VerifiedToken> verified;
+
+    public JwtService(JwtProperties jwtProperties) {
+        this.jwtProperties = jwtProperties;
+        this.signingKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        int cacheSize = jwtProperties.getVerifiedCacheSize();
+        this.verified = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
 
     public String generateToken(User user) {
         Date now = new Date();
@@ -30,38 +55,62 @@ public class JwtService {
                 .subject(user.getId().toString())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public UUID extractUserId(String token) {
-        Claims claims = extractClaims(token);
-        return UUID.fromString(claims.getSubject());
-    }
-
-    public boolean validateToken(String token) {
+    // Parses and verifies the token at most once; empty if it is malformed, forged or expired
+    public Optional<VerifiedToken> verify(String token) {
         if (token == null) {
-            return false;
+            return Optional.empty();
+        }
+
+        String key = hash(token);
+        Instant now = Instant.now();
+        synchronized (verified) {
+            VerifiedToken cached = verified.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(now)) {
+                    return Optional.of(cached);
+                }
+                verified.remove(key);
+                return Optional.empty();
+            }
         }
+
+        VerifiedToken verifiedToken;
         try {
-            extractClaims(token);
-            return true;
-        } catch (JwtException e) {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.MAX;
+            // Without iat the token counts as issued before any revocation
+            Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : Instant.EPOCH;
+            verifiedToken = new VerifiedToken(UUID.fromString(claims.getSubject()), issuedAt, expiresAt);
+        } catch (JwtException | IllegalArgumentException e) {
             log.debug("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
+        }
+        synchronized (verified) {
+            verified.put(key, verifiedToken);
         }
+        return Optional.of(verifiedToken);
+    }
+
+    public UUID extractUserId(String token) {
+        return verify(token)
+                .map(VerifiedToken::userId)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,110 @@
+package com.allesgut.security;
+
+import com.allesgut.config.RateLimitProperties;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket per key. A bucket is kept as the time it will be full again (the GCRA form of a token
+// bucket), a single long, so taking a token is one compare-and-set and needs no lock.
+class RateLimiter {
+
+    private final long intervalNanos;
+    // How far ahead of now the full time may be while a token is left
+    private final long burstNanos;
+    private final int maxKeys;
+    private final Map<String, AtomicLong> fullAt = new ConcurrentHashMap<>();
+    // Keys in the order their buckets were created, for evicting the oldest from a full table
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    // When a full table last evicted its full buckets; NEVER before the first time
+    private final AtomicLong evictedAt = new AtomicLong(NEVER);
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    RateLimiter(RateLimitProperties.Limit limit, int maxKeys) {
+        this.intervalNanos = limit.getInterval().toNanos();
+        this.burstNanos = (limit.getCapacity() - 1) * intervalNanos;
+        this.maxKeys = maxKeys;
+    }
+
+    // Takes a token; returns 0 if one was available, otherwise the nanos until one is
+    long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = fullAt.get(key);
+        if (bucket == null) {
+            bucket = track(key, nowNanos);
+        }
+        while (true) {
+            long current = bucket.get();
+            long start = current - nowNanos > 0 ? current : nowNanos;
+            long wait = start - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // Gives back a token taken by tryAcquire, when the request was rejected by another limit after all
+    void release(String key) {
+        AtomicLong bucket = fullAt.get(key);
+        if (bucket != null) {
+            bucket.addAndGet(-intervalNanos);
+        }
+    }
+
+    // Drops full buckets, which behave like absent ones. A request racing the removal may go
+    // through uncounted; one extra request is cheaper than locking every acquire.
+    void sweep(long nowNanos) {
+        fullAt.values().removeIf(bucket -> bucket.get() - nowNanos <= 0);
+        insertionOrder.removeIf(key -> !fullAt.containsKey(key));
+    }
+
+    // A full table first drops refilled buckets, then the oldest ones. Rejecting untracked keys instead
+    // would let anyone lock out every new key by filling the table with made-up ones; evicting only
+    // resets the limit of the key tracked the longest.
+    private AtomicLong track(String key, long nowNanos) {
+        if (fullAt.size() >= maxKeys && !evictFullBuckets(nowNanos)) {
+            while (fullAt.size() >= maxKeys) {
+                String oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                fullAt.remove(oldest);
+            }
+        }
+        AtomicLong created = new AtomicLong(nowNanos);
+        AtomicLong existing = fullAt.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        insertionOrder.add(key);
+        return created;
+    }
+
+    // At most once per interval, so a flood of new keys does not scan the table on every request.
+    // Returns whether room was made.
+    private boolean evictFullBuckets(long nowNanos) {
+        long last = evictedAt.get();
+        if (last != NEVER && nowNanos - last < intervalNanos) {
+            return false;
+        }
+        if (!evictedAt.compareAndSet(last, nowNanos)) {
+            return false;
+        }
+        sweep(nowNanos);
+        return fullAt.size() < maxKeys;
+    }
+
+    int size() {
+        return fullAt.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.allesgut.security;
+
+import com.allesgut.config.JwtProperties;
+import com.allesgut.entity.TokenRevocation;
+import com.allesgut.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revocations from token_revocations (logout, a newer login, deleted users), kept in memory so
+// authenticating a request needs no database read. Only rows within the token lifetime matter and are
+// kept. Revocations made on this node apply on commit; those of other nodes are picked up incrementally
+// by polling updated_at, so they take effect within one refresh interval.
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    // Re-read margin for rows whose transaction committed after a later updated_at was already seen
+    private static final Duration OVERLAP = Duration.ofSeconds(30);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration tokenLifetime;
+    private final Map<UUID, Instant> notBefore = new ConcurrentHashMap<>();
+
+    // Latest updated_at read so far; null until a revocation was seen
+    private LocalDateTime loadedUpTo;
+
+    public TokenRevocationRegistry(TokenRevocationRepository tokenRevocationRepository, JwtProperties jwtProperties) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenLifetime = Duration.ofMillis(jwtProperties.getExpiration());
+    }
+
+    @PostConstruct
+    void load() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            // Retried by the next scheduled refresh
+            log.warn("Failed to load token revocations", e);
+        }
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        return isRevoked(token.userId(), token.issuedAt());
+    }
+
+    public boolean isRevoked(UUID userId, Instant issuedAt) {
+        Instant revokedBefore = notBefore.get(userId);
+        return revokedBefore != null && issuedAt.isBefore(revokedBefore);
+    }
+
+    // Rejects the user's tokens issued before notBefore; joins the caller's transaction
+    public void revoke(UUID userId, Instant notBefore, String reason) {
+        tokenRevocationRepository.upsert(userId, LocalDateTime.ofInstant(notBefore, ZoneId.systemDefault()), reason);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, notBefore);
+                }
+            });
+        } else {
+            apply(userId, notBefore);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-interval:PT5S}", initialDelay = 5_000)
+    public synchronized void refresh() {
+        LocalDateTime since = loadedUpTo != null
+                ? loadedUpTo.minus(OVERLAP)
+                : LocalDateTime.now().minus(tokenLifetime);
+        List<TokenRevocation> changed = tokenRevocationRepository.findByUpdatedAtAfterOrderByUpdatedAt(since);
+        for (TokenRevocation revocation : changed) {
+            apply(revocation.getUserId(), revocation.getNotBefore().atZone(ZoneId.systemDefault()).toInstant());
+        }
+        if (!changed.isEmpty()) {
+            loadedUpTo = changed.get(changed.size() - 1).getUpdatedAt();
+        }
+
+        // Every token issued before an old revocation has expired by now
+        Instant expiredBefore = Instant.now().minus(tokenLifetime);
+        notBefore.values().removeIf(revokedBefore -> revokedBefore.isBefore(expiredBefore));
+    }
+
+    // Synchronized with refresh, so a refresh that read the row before it committed cannot overwrite it
+    private synchronized void apply(UUID userId, Instant revokedBefore) {
+        notBefore.put(userId, revokedBefore);
+    }
+
+    int size() {
+        return notBefore.size();
+    }
+}
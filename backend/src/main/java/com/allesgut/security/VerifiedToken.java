@@ -0,0 +1,6 @@
+package com.allesgut.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record VerifiedToken(UUID userId, Instant issuedAt, Instant expiresAt) {}
@@ -0,0 +1,76 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.dto.response.PublicUserDto;
+import com.allesgut.entity.User;
+import com.allesgut.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Public profiles of notification actors. The same few actors show up across many recipients' pages,
+// so they are kept in memory and misses are loaded with one query. Entries are dropped when a profile
+// changes on this node and expire after a TTL for changes made on other nodes.
+@Component
+public class ActorCache {
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Map<UUID, CachedActor> actors;
+
+    public ActorCache(UserRepository userRepository, NotificationProperties properties) {
+        this.userRepository = userRepository;
+        this.ttlNanos = properties.getActors().getCacheTtl().toNanos();
+        int cacheSize = properties.getActors().getCacheSize();
+        this.actors = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedActor> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Users that no longer exist are left out of the result
+    public Map<UUID, PublicUserDto> getAll(Collection<UUID> userIds) {
+        Map<UUID, PublicUserDto> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (actors) {
+            for (UUID userId : userIds) {
+                CachedActor cached = actors.get(userId);
+                if (cached != null && now - cached.loadedAt() <= ttlNanos) {
+                    found.put(userId, cached.actor());
+                } else if (!found.containsKey(userId)) {
+                    missing.add(userId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<User> users = userRepository.findByIdIn(missing);
+        synchronized (actors) {
+            for (User user : users) {
+                PublicUserDto actor = new PublicUserDto(user.getId(), user.getNickname(), user.getAvatarUrl());
+                actors.put(user.getId(), new CachedActor(actor, now));
+                found.put(user.getId(), actor);
+            }
+        }
+        return found;
+    }
+
+    public void invalidate(UUID userId) {
+        synchronized (actors) {
+            actors.remove(userId);
+        }
+    }
+
+    private record CachedActor(PublicUserDto actor, long loadedAt) {}
+}
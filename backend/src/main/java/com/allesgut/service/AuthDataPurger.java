@@ -0,0 +1,65 @@
+package com.allesgut.service;
+
+import com.allesgut.config.AuthProperties;
+import com.allesgut.config.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Deletes expired verification codes, expired sessions and revocations older than the token lifetime.
+// Runs in small batches, each its own statement and transaction, and skips rows locked by a login
+// in progress or another node's purge, so it never holds up the login path.
+@Slf4j
+@Component
+public class AuthDataPurger {
+
+    // Used codes expire minutes after being sent, so expiry covers them too
+    private static final String PURGE_CODES = "delete from sms_verification_codes where id in (" +
+            "select id from sms_verification_codes where expires_at < ? limit ? for update skip locked)";
+    private static final String PURGE_SESSIONS = "delete from user_sessions where id in (" +
+            "select id from user_sessions where expires_at < ? limit ? for update skip locked)";
+    // Every token such a row rejects has expired
+    private static final String PURGE_REVOCATIONS = "delete from token_revocations where user_id in (" +
+            "select user_id from token_revocations where updated_at < ? limit ? for update skip locked)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration tokenLifetime;
+
+    public AuthDataPurger(JdbcTemplate jdbcTemplate, AuthProperties authProperties, JwtProperties jwtProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = authProperties.getPurge().getBatchSize();
+        this.maxBatchesPerRun = authProperties.getPurge().getMaxBatchesPerRun();
+        this.tokenLifetime = Duration.ofMillis(jwtProperties.getExpiration());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.purge.interval:PT1M}", initialDelay = 60_000)
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int codes = purge(PURGE_CODES, now);
+        int sessions = purge(PURGE_SESSIONS, now);
+        int revocations = purge(PURGE_REVOCATIONS, now.minus(tokenLifetime));
+        if (codes + sessions + revocations > 0) {
+            log.debug("Purged {} verification codes, {} sessions and {} token revocations",
+                    codes, sessions, revocations);
+        }
+    }
+
+    // Stops after a short batch or maxBatchesPerRun; a larger backlog is worked off over the next runs
+    private int purge(String sql, LocalDateTime before) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = jdbcTemplate.update(sql, before, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -7,12 +7,17 @@ import com.allesgut.entity.UserSession;
 import com.allesgut.repository.UserRepository;
 import com.allesgut.repository.UserSessionRepository;
 import com.allesgut.security.JwtService;
+import com.allesgut.security.TokenRevocationRegistry;
+import com.allesgut.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Service
@@ -23,6 +28,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final UserSessionRepository sessionRepository;
     private final JwtService jwtService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     @Transactional
     public LoginResponse verifyAndLogin(String phone, String code) {
@@ -43,11 +49,16 @@ public class AuthService {
                     .orElseThrow(() -> new IllegalStateException("Failed to create or find user"));
         }
 
-        // Generate JWT token
+        // Generate JWT token; iat has second precision, so the new token is not issued before this
+        Instant issuedNotBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS);
         String token = jwtService.generateToken(user);
 
-        // Invalidate old sessions for security
-        sessionRepository.deleteByUserId(user.getId());
+        // Invalidate old sessions for security; their tokens are rejected from now on. This also lifts
+        // a logout of the same second, which would reject the new token too.
+        long deletedSessions = sessionRepository.deleteByUserId(user.getId());
+        if (deletedSessions > 0 || tokenRevocationRegistry.isRevoked(user.getId(), issuedNotBefore)) {
+            tokenRevocationRegistry.revoke(user.getId(), issuedNotBefore, "login");
+        }
 
         // Save session
         UserSession session = UserSession.builder()
@@ -84,9 +95,14 @@ public class AuthService {
 
     @Transactional
     public void logout(String token) {
-        // For JWT-based auth, we invalidate the session
-        // The token itself remains valid until expiry, but we remove it from our session store
         sessionRepository.deleteByToken(token);
+
+        // Rejects the token and any earlier one of the user. An already revoked token must not
+        // revoke the user's newer session.
+        Optional<VerifiedToken> verified = jwtService.verify(token);
+        if (verified.isPresent() && !tokenRevocationRegistry.isRevoked(verified.get())) {
+            tokenRevocationRegistry.revoke(verified.get().userId(), Instant.now(), "logout");
+        }
     }
 
     private UserDto mapToDto(User user) {
@@ -0,0 +1,131 @@
+package com.allesgut.service;
+
+import com.allesgut.dto.response.CommentDto;
+import com.allesgut.dto.response.CursorPageResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Viewer-independent comment pages (content, authors, reply previews) keyed by post, sort and cursor.
+// Like counts and viewer-specific flags such as isLiked are overlaid by CommentService on every read,
+// so likes do not drop the post's pages; only the HOT order may lag by up to the TTL.
+// Pages are held per post, each post behind its own lock, so readers of different posts never contend.
+@Component
+public class CommentPageCache {
+
+    private static final int MAX_POSTS = 1_000;
+    private static final int MAX_PAGES_PER_POST = 20;
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Map<UUID, PostPages> postsById = new ConcurrentHashMap<>();
+
+    public long startLoad() {
+        return System.nanoTime();
+    }
+
+    public CursorPageResponse<CommentDto> get(UUID postId, CommentSort sort, String cursor, int limit) {
+        PostPages post = postsById.get(postId);
+        return post != null ? post.get(new PageKey(sort, cursor, limit)) : null;
+    }
+
+    public void put(UUID postId, CommentSort sort, String cursor, int limit,
+                    CursorPageResponse<CommentDto> page, long loadStartedAt) {
+        PostPages post = postsById.get(postId);
+        if (post == null) {
+            // Full: serve this post uncached until the sweep frees room
+            if (postsById.size() >= MAX_POSTS) {
+                return;
+            }
+            post = postsById.computeIfAbsent(postId, id -> new PostPages(loadStartedAt));
+        }
+        post.put(new PageKey(sort, cursor, limit), page, loadStartedAt);
+    }
+
+    // Invalidate now, and again once the surrounding transaction commits so that pages loaded
+    // from the pre-commit snapshot in between are dropped as well
+    public void invalidate(UUID postId) {
+        invalidateNow(postId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(postId);
+                }
+            });
+        }
+    }
+
+    // Replaces the post's pages with an empty set that remembers when it was invalidated, so a load
+    // that started before this cannot put its possibly stale page back
+    private void invalidateNow(UUID postId) {
+        long now = System.nanoTime();
+        postsById.put(postId, new PostPages(now, now));
+    }
+
+    // Drops posts whose pages have all expired. Markers older than the TTL go with them: a load that
+    // started before the marker would put a page that is already expired.
+    @Scheduled(fixedDelayString = "${comments.cache.sweep-interval:PT30S}")
+    public void sweep() {
+        long now = System.nanoTime();
+        postsById.values().removeIf(post -> post.isExpired(now));
+    }
+
+    private static final class PostPages {
+        private final long invalidatedAt;
+        private final Map<PageKey, CachedPage> pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, CachedPage> eldest) {
+                return size() > MAX_PAGES_PER_POST;
+            }
+        };
+        private long lastActivityAt;
+
+        PostPages(long createdAt) {
+            this(createdAt, createdAt - TTL_NANOS - 1);
+        }
+
+        PostPages(long createdAt, long invalidatedAt) {
+            this.lastActivityAt = createdAt;
+            this.invalidatedAt = invalidatedAt;
+        }
+
+        synchronized CursorPageResponse<CommentDto> get(PageKey key) {
+            CachedPage cached = pages.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (System.nanoTime() - cached.loadStartedAt() > TTL_NANOS) {
+                pages.remove(key);
+                return null;
+            }
+            return cached.page();
+        }
+
+        synchronized void put(PageKey key, CursorPageResponse<CommentDto> page, long loadStartedAt) {
+            // A write to this post landed while the page was being loaded, so it may already be stale
+            if (invalidatedAt - loadStartedAt >= 0) {
+                return;
+            }
+            pages.put(key, new CachedPage(page, loadStartedAt));
+            if (loadStartedAt - lastActivityAt > 0) {
+                lastActivityAt = loadStartedAt;
+            }
+        }
+
+        synchronized boolean isExpired(long now) {
+            return now - lastActivityAt > TTL_NANOS;
+        }
+    }
+
+    private record PageKey(CommentSort sort, String cursor, int limit) {}
+
+    private record CachedPage(CursorPageResponse<CommentDto> page, long loadStartedAt) {}
+}
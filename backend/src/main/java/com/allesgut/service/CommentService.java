@@ -2,19 +2,21 @@ package com.allesgut.service;
 
 import com.allesgut.dto.request.CreateCommentRequest;
 import com.allesgut.dto.response.CommentDto;
-import com.allesgut.dto.response.PageResponse;
+import com.allesgut.dto.response.CursorPageResponse;
 import com.allesgut.dto.response.UserDto;
 import com.allesgut.entity.*;
 import com.allesgut.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -22,12 +24,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CommentService {
 
+    private static final int REPLY_PREVIEW_SIZE = 3;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final CommentLikeRepository commentLikeRepository;
     private final CommentMentionRepository commentMentionRepository;
     private final NotificationService notificationService;
+    private final CommentPageCache commentPageCache;
 
     @Transactional
     public CommentDto createComment(UUID postId, UUID userId, CreateCommentRequest request) {
@@ -45,12 +50,13 @@ public class CommentService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         // Validate parent comment if provided
+        Comment parent = null;
         if (request.parentId() != null) {
-            Comment parentComment = commentRepository.findById(request.parentId())
+            parent = commentRepository.findById(request.parentId())
                     .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
 
             // Ensure parent belongs to same post
-            if (!parentComment.getPostId().equals(postId)) {
+            if (!parent.getPostId().equals(postId)) {
                 throw new IllegalArgumentException("Parent comment does not belong to this post");
             }
         }
@@ -60,25 +66,37 @@ public class CommentService {
                 .postId(postId)
                 .userId(userId)
                 .parentId(request.parentId())
+                .rootId(parent == null ? null : (parent.getRootId() != null ? parent.getRootId() : parent.getId()))
+                .depth(parent == null ? 0 : parent.getDepth() + 1)
                 .content(request.content())
                 .likesCount(0)
                 .build();
 
         comment = commentRepository.save(comment);
 
-        // Handle mentions
-        List<UserDto> mentionedUsers = new ArrayList<>();
-        if (request.mentions() != null && !request.mentions().isEmpty()) {
-            for (UUID mentionedUserId : request.mentions()) {
-                User mentionedUser = userRepository.findById(mentionedUserId).orElse(null);
-                if (mentionedUser != null) {
-                    CommentMention mention = CommentMention.builder()
-                            .commentId(comment.getId())
-                            .userId(mentionedUserId)
-                            .build();
-                    commentMentionRepository.save(mention);
-                    mentionedUsers.add(mapUserToDto(mentionedUser));
-                }
+        // Increment reply count of every ancestor in the thread
+        if (parent != null) {
+            commentRepository.adjustReplyCountOfAncestors(parent.getId(), 1);
+        }
+
+        // Handle mentions: one lookup for all mentioned users, one insert for all mention rows
+        List<UUID> mentionedUserIds = request.mentions() == null
+                ? List.of()
+                : request.mentions().stream().distinct().collect(Collectors.toList());
+        List<User> mentionedUsers = new ArrayList<>();
+        if (!mentionedUserIds.isEmpty()) {
+            Map<UUID, User> mentionedUserById = new HashMap<>();
+            for (User mentionedUser : userRepository.findByIdIn(mentionedUserIds)) {
+                mentionedUserById.put(mentionedUser.getId(), mentionedUser);
+            }
+            mentionedUserIds.stream()
+                    .map(mentionedUserById::get)
+                    .filter(Objects::nonNull)
+                    .forEach(mentionedUsers::add);
+
+            if (!mentionedUsers.isEmpty()) {
+                commentMentionRepository.insertMentions(comment.getId(),
+                        mentionedUsers.stream().map(User::getId).collect(Collectors.toList()));
             }
         }
 
@@ -86,89 +104,251 @@ public class CommentService {
         Integer currentCommentsCount = post.getCommentsCount();
         post.setCommentsCount((currentCommentsCount != null ? currentCommentsCount : 0) + 1);
         postRepository.save(post);
+        commentPageCache.invalidate(postId);
+
+        // Create notifications, handed to the notification writer together
+        List<NotificationEvent> notifications = new ArrayList<>();
 
-        // Create notifications
         // 1. Notify post author if someone comments on their post (not own comment)
-        if (request.parentId() == null && !post.getUserId().equals(userId)) {
-            notificationService.createNotification(
-                    post.getUserId(),
-                    "comment",
-                    userId,
-                    comment.getId(),
-                    user.getNickname() + " commented on your post"
-            );
+        if (parent == null && !post.getUserId().equals(userId)) {
+            notifications.add(NotificationEvent.of(post.getUserId(), NotificationTemplate.POST_COMMENT, userId,
+                    comment.getId()));
         }
 
         // 2. Notify parent comment author if someone replies (not own comment)
-        if (request.parentId() != null) {
-            Comment parentComment = commentRepository.findById(request.parentId()).orElse(null);
-            if (parentComment != null && !parentComment.getUserId().equals(userId)) {
-                notificationService.createNotification(
-                        parentComment.getUserId(),
-                        "comment",
-                        userId,
-                        comment.getId(),
-                        user.getNickname() + " replied to your comment"
-                );
-            }
+        if (parent != null && !parent.getUserId().equals(userId)) {
+            notifications.add(NotificationEvent.of(parent.getUserId(), NotificationTemplate.COMMENT_REPLY, userId,
+                    comment.getId()));
         }
 
         // 3. Notify mentioned users (not self-mentions)
-        if (request.mentions() != null && !request.mentions().isEmpty()) {
-            for (UUID mentionedUserId : request.mentions()) {
-                if (!mentionedUserId.equals(userId)) {
-                    notificationService.createNotification(
-                            mentionedUserId,
-                            "mention",
-                            userId,
-                            comment.getId(),
-                            user.getNickname() + " mentioned you in a comment"
-                    );
-                }
+        for (User mentionedUser : mentionedUsers) {
+            if (!mentionedUser.getId().equals(userId)) {
+                notifications.add(NotificationEvent.of(mentionedUser.getId(), NotificationTemplate.COMMENT_MENTION,
+                        userId, comment.getId()));
             }
         }
 
+        if (!notifications.isEmpty()) {
+            notificationService.createNotifications(notifications);
+        }
+
         // Return DTO
-        return mapToDto(comment, user, mentionedUsers, false, new ArrayList<>());
+        return mapToDto(comment, user,
+                mentionedUsers.stream().map(this::mapUserToDto).collect(Collectors.toList()),
+                false, new ArrayList<>());
     }
 
-    public PageResponse<CommentDto> getCommentsByPost(UUID postId, UUID currentUserId, int page, int limit) {
-        Pageable pageable = PageRequest.of(page, limit);
-        Page<Comment> commentsPage = commentRepository.findByPostIdOrderByCreatedAtAsc(postId, pageable);
+    public CursorPageResponse<CommentDto> getCommentsByPost(UUID postId, UUID currentUserId, CommentSort sort,
+                                                            String cursor, int limit) {
+        CursorPageResponse<CommentDto> page = commentPageCache.get(postId, sort, cursor, limit);
+        if (page == null) {
+            long loadStartedAt = commentPageCache.startLoad();
+            page = loadCommentsByPost(postId, sort, cursor, limit);
+            commentPageCache.put(postId, sort, cursor, limit, page, loadStartedAt);
+        }
 
-        List<CommentDto> commentDtos = commentsPage.getContent().stream()
-                .map(comment -> {
-                    User author = userRepository.findById(comment.getUserId()).orElse(null);
-                    boolean isLiked = currentUserId != null &&
-                            commentLikeRepository.existsByUserIdAndCommentId(currentUserId, comment.getId());
+        return withLikedFlags(withLikesCounts(page), currentUserId);
+    }
+
+    private CursorPageResponse<CommentDto> loadCommentsByPost(UUID postId, CommentSort sort, String cursor, int limit) {
+        List<Comment> fetched = sort == CommentSort.HOT
+                ? findHotTopLevel(postId, cursor, limit + 1)
+                : findNewTopLevel(postId, cursor, limit + 1);
+
+        boolean hasMore = fetched.size() > limit;
+        List<Comment> comments = hasMore ? fetched.subList(0, limit) : fetched;
+
+        if (comments.isEmpty()) {
+            return CursorPageResponse.of(List.of(), limit, null);
+        }
+
+        List<UUID> commentIds = comments.stream().map(Comment::getId).toList();
 
-                    // Get mentions
-                    List<UserDto> mentions = commentMentionRepository.findByCommentId(comment.getId())
+        // First replies of every thread on the page, picked in one window-function query
+        Map<UUID, List<Comment>> previewsByRootId = new HashMap<>();
+        for (Comment reply : commentRepository.findReplyPreviewsByRootIds(commentIds, REPLY_PREVIEW_SIZE)) {
+            previewsByRootId.computeIfAbsent(reply.getRootId(), k -> new ArrayList<>()).add(reply);
+        }
+
+        List<CommentDto> commentDtos = toDtos(comments, previewsByRootId);
+        Comment last = comments.get(comments.size() - 1);
+        String nextCursor = !hasMore ? null
+                : sort == CommentSort.HOT ? HotCommentCursor.from(last).encode() : CommentCursor.from(last).encode();
+
+        return CursorPageResponse.of(commentDtos, limit, nextCursor);
+    }
+
+    private List<Comment> findNewTopLevel(UUID postId, String cursor, int limit) {
+        CommentCursor after = CommentCursor.decode(cursor);
+        return after == null
+                ? commentRepository.findTopLevelByPostId(postId, limit)
+                : commentRepository.findTopLevelByPostIdAfter(postId, after.createdAt(), after.id(), limit);
+    }
+
+    private List<Comment> findHotTopLevel(UUID postId, String cursor, int limit) {
+        HotCommentCursor after = HotCommentCursor.decode(cursor);
+        return after == null
+                ? commentRepository.findHotTopLevelByPostId(postId, limit)
+                : commentRepository.findHotTopLevelByPostIdAfter(
+                        postId, after.likesCount(), after.createdAt(), after.id(), limit);
+    }
+
+    public CursorPageResponse<CommentDto> getReplies(UUID commentId, UUID currentUserId, String cursor, int limit) {
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new IllegalArgumentException("Comment not found"));
+
+        // Top-level comments page through their whole thread, nested replies through direct children
+        CommentCursor after = CommentCursor.decode(cursor);
+        List<Comment> fetched;
+        if (comment.getParentId() == null) {
+            fetched = after == null
+                    ? commentRepository.findRepliesByRootId(commentId, limit + 1)
+                    : commentRepository.findRepliesByRootIdAfter(commentId, after.createdAt(), after.id(), limit + 1);
+        } else {
+            fetched = after == null
+                    ? commentRepository.findRepliesByParentId(commentId, limit + 1)
+                    : commentRepository.findRepliesByParentIdAfter(commentId, after.createdAt(), after.id(), limit + 1);
+        }
+
+        boolean hasMore = fetched.size() > limit;
+        List<Comment> replies = hasMore ? fetched.subList(0, limit) : fetched;
+
+        if (replies.isEmpty()) {
+            return CursorPageResponse.of(List.of(), limit, null);
+        }
+
+        List<CommentDto> replyDtos = toDtos(replies, Map.of());
+        String nextCursor = hasMore ? CommentCursor.from(replies.get(replies.size() - 1)).encode() : null;
+
+        return withLikedFlags(CursorPageResponse.of(replyDtos, limit, nextCursor), currentUserId);
+    }
+
+    // Builds viewer-independent DTOs; isLiked is filled in by withLikedFlags
+    private List<CommentDto> toDtos(List<Comment> comments, Map<UUID, List<Comment>> previewsByRootId) {
+        List<UUID> commentIds = new ArrayList<>();
+        comments.forEach(comment -> commentIds.add(comment.getId()));
+        previewsByRootId.values().forEach(replies -> replies.forEach(reply -> commentIds.add(reply.getId())));
+
+        // Batch load mentions
+        Map<UUID, List<UUID>> mentionedUserIdsByCommentId = new HashMap<>();
+        for (CommentMention mention : commentMentionRepository.findByCommentIdIn(commentIds)) {
+            mentionedUserIdsByCommentId.computeIfAbsent(mention.getCommentId(), k -> new ArrayList<>())
+                    .add(mention.getUserId());
+        }
+
+        // Batch load authors and mentioned users
+        Set<UUID> userIdsSet = new HashSet<>();
+        comments.forEach(comment -> userIdsSet.add(comment.getUserId()));
+        previewsByRootId.values().forEach(replies -> replies.forEach(reply -> userIdsSet.add(reply.getUserId())));
+        mentionedUserIdsByCommentId.values().forEach(userIdsSet::addAll);
+
+        Map<UUID, User> userById = new HashMap<>();
+        for (User user : userRepository.findByIdIn(new ArrayList<>(userIdsSet))) {
+            userById.put(user.getId(), user);
+        }
+
+        // Convert to DTOs
+        return comments.stream()
+                .map(comment -> {
+                    List<CommentDto> replies = previewsByRootId.getOrDefault(comment.getId(), List.of())
                             .stream()
-                            .map(mention -> userRepository.findById(mention.getUserId()).orElse(null))
-                            .filter(user -> user != null)
-                            .map(this::mapUserToDto)
+                            .map(reply -> mapToDto(reply, userById.get(reply.getUserId()),
+                                    mapMentions(reply, mentionedUserIdsByCommentId, userById),
+                                    false, new ArrayList<>()))
                             .collect(Collectors.toList());
 
-                    // Get replies (nested comments)
-                    List<CommentDto> replies = new ArrayList<>();
-                    if (comment.getParentId() == null) {
-                        replies = commentRepository.findByParentIdOrderByCreatedAtAsc(comment.getId())
-                                .stream()
-                                .map(reply -> {
-                                    User replyAuthor = userRepository.findById(reply.getUserId()).orElse(null);
-                                    boolean replyIsLiked = currentUserId != null &&
-                                            commentLikeRepository.existsByUserIdAndCommentId(currentUserId, reply.getId());
-                                    return mapToDto(reply, replyAuthor, new ArrayList<>(), replyIsLiked, new ArrayList<>());
-                                })
-                                .collect(Collectors.toList());
-                    }
-
-                    return mapToDto(comment, author, mentions, isLiked, replies);
+                    return mapToDto(comment, userById.get(comment.getUserId()),
+                            mapMentions(comment, mentionedUserIdsByCommentId, userById),
+                            false, replies);
                 })
                 .collect(Collectors.toList());
+    }
+
+    // Cached pages keep the counts they were loaded with, so the current ones are read by primary key
+    private CursorPageResponse<CommentDto> withLikesCounts(CursorPageResponse<CommentDto> page) {
+        if (page.getData().isEmpty()) {
+            return page;
+        }
+
+        List<UUID> commentIds = new ArrayList<>();
+        page.getData().forEach(comment -> {
+            commentIds.add(comment.id());
+            comment.replies().forEach(reply -> commentIds.add(reply.id()));
+        });
+
+        Map<UUID, Integer> likesCountById = new HashMap<>();
+        commentRepository.findLikesCountsByIdIn(commentIds)
+                .forEach(row -> likesCountById.put(row.getId(), row.getLikesCount()));
+
+        List<CommentDto> comments = page.getData().stream()
+                .map(comment -> withLikesCount(comment, likesCountById,
+                        comment.replies().stream()
+                                .map(reply -> withLikesCount(reply, likesCountById, reply.replies()))
+                                .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+
+        return new CursorPageResponse<>(comments, page.getLimit(), page.getNextCursor(), page.isHasMore());
+    }
+
+    private CommentDto withLikesCount(CommentDto comment, Map<UUID, Integer> likesCountById, List<CommentDto> replies) {
+        return new CommentDto(
+                comment.id(),
+                comment.author(),
+                comment.postId(),
+                comment.parentId(),
+                comment.content(),
+                likesCountById.getOrDefault(comment.id(), comment.likesCount()),
+                comment.isLiked(),
+                comment.mentions(),
+                replies,
+                comment.replyCount(),
+                comment.createdAt(),
+                comment.updatedAt()
+        );
+    }
+
+    private CursorPageResponse<CommentDto> withLikedFlags(CursorPageResponse<CommentDto> page, UUID currentUserId) {
+        if (currentUserId == null || page.getData().isEmpty()) {
+            return page;
+        }
+
+        List<UUID> commentIds = new ArrayList<>();
+        page.getData().forEach(comment -> {
+            commentIds.add(comment.id());
+            comment.replies().forEach(reply -> commentIds.add(reply.id()));
+        });
+
+        // Batch load liked comments for current user
+        Set<UUID> likedCommentIds = new HashSet<>();
+        commentLikeRepository.findByUserIdAndCommentIdIn(currentUserId, commentIds)
+                .forEach(like -> likedCommentIds.add(like.getCommentId()));
+
+        List<CommentDto> comments = page.getData().stream()
+                .map(comment -> withLiked(comment, likedCommentIds.contains(comment.id()),
+                        comment.replies().stream()
+                                .map(reply -> withLiked(reply, likedCommentIds.contains(reply.id()), reply.replies()))
+                                .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+
+        return new CursorPageResponse<>(comments, page.getLimit(), page.getNextCursor(), page.isHasMore());
+    }
 
-        return PageResponse.of(commentDtos, page, limit, commentsPage.getTotalElements());
+    private CommentDto withLiked(CommentDto comment, boolean isLiked, List<CommentDto> replies) {
+        return new CommentDto(
+                comment.id(),
+                comment.author(),
+                comment.postId(),
+                comment.parentId(),
+                comment.content(),
+                comment.likesCount(),
+                isLiked,
+                comment.mentions(),
+                replies,
+                comment.replyCount(),
+                comment.createdAt(),
+                comment.updatedAt()
+        );
     }
 
     @Transactional
@@ -185,12 +365,19 @@ public class CommentService {
         Post post = postRepository.findById(comment.getPostId())
                 .orElseThrow(() -> new IllegalArgumentException("Post not found"));
 
-        // Delete comment (cascade will delete likes and mentions)
+        // Delete comment (cascade will delete replies, likes and mentions)
+        int removedCount = 1 + comment.getReplyCount();
         commentRepository.delete(comment);
 
-        // Decrement post comments count
-        post.setCommentsCount(Math.max(0, post.getCommentsCount() - 1));
+        // Decrement reply count of every remaining ancestor
+        if (comment.getParentId() != null) {
+            commentRepository.adjustReplyCountOfAncestors(comment.getParentId(), -removedCount);
+        }
+
+        // Decrement post comments count, including cascaded replies
+        post.setCommentsCount(Math.max(0, post.getCommentsCount() - removedCount));
         postRepository.save(post);
+        commentPageCache.invalidate(comment.getPostId());
     }
 
     @Transactional
@@ -214,16 +401,12 @@ public class CommentService {
 
         // Create notification if not liking own comment
         if (!comment.getUserId().equals(userId)) {
-            User liker = userRepository.findById(userId).orElse(null);
-            if (liker != null) {
-                notificationService.createNotification(
-                        comment.getUserId(),
-                        "like",
-                        userId,
-                        commentId,
-                        liker.getNickname() + " liked your comment"
-                );
-            }
+            notificationService.createNotification(
+                    comment.getUserId(),
+                    NotificationTemplate.COMMENT_LIKE,
+                    userId,
+                    commentId
+            );
         }
     }
 
@@ -256,11 +439,22 @@ public class CommentService {
                 isLiked,
                 mentions,
                 replies,
+                comment.getReplyCount(),
                 comment.getCreatedAt(),
                 comment.getUpdatedAt()
         );
     }
 
+    private List<UserDto> mapMentions(Comment comment, Map<UUID, List<UUID>> mentionedUserIdsByCommentId,
+                                      Map<UUID, User> userById) {
+        return mentionedUserIdsByCommentId.getOrDefault(comment.getId(), List.of())
+                .stream()
+                .map(userById::get)
+                .filter(user -> user != null)
+                .map(this::mapUserToDto)
+                .collect(Collectors.toList());
+    }
+
     private UserDto mapUserToDto(User user) {
         return new UserDto(
                 user.getId(),
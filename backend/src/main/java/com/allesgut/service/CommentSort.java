@@ -0,0 +1,19 @@
+package com.allesgut.service;
+
+public enum CommentSort {
+    // Oldest first, paged by (created_at, id)
+    NEW,
+    // Most liked first, paged by (likes_count desc, created_at, id)
+    HOT;
+
+    public static CommentSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return NEW;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sort: " + value);
+        }
+    }
+}
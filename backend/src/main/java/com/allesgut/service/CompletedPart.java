@@ -0,0 +1,3 @@
+package com.allesgut.service;
+
+public record CompletedPart(int partNumber, String etag) {}
@@ -1,122 +1,248 @@
 package com.allesgut.service;
 
-import com.aliyun.oss.OSS;
-import com.aliyun.oss.model.PutObjectRequest;
-import com.allesgut.config.AliyunOssProperties;
+import com.allesgut.config.StorageProperties;
+import com.allesgut.dto.response.PresignedUploadDto;
+import com.allesgut.entity.MediaObject;
+import com.allesgut.repository.MediaObjectRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 public class FileUploadService {
 
-    private final OSS ossClient;
-    private final AliyunOssProperties ossProperties;
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("(\\.[A-Za-z0-9]{1,10})?");
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-fA-F]{64}");
+    // Direct uploads land here and are moved to their object key on completion. Hidden from local serving.
+    private static final String STAGING_PREFIX = ".staging/";
+    // Streamed uploads are kept by content, shared by every upload of the same bytes
+    private static final String CONTENT_PREFIX = "media/";
+
+    private final ObjectStorage storage;
+    private final ImageDerivativeService derivativeService;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final Duration presignTtl;
+
+    public FileUploadService(ObjectStorage storage, ImageDerivativeService derivativeService,
+                             MediaObjectRepository mediaObjectRepository, StorageProperties storageProperties) {
+        this.storage = storage;
+        this.derivativeService = derivativeService;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.presignTtl = storageProperties.getPresignTtl();
+    }
 
-    public FileUploadService(@Autowired(required = false) OSS ossClient, AliyunOssProperties ossProperties) {
-        this.ossClient = ossClient;
-        this.ossProperties = ossProperties;
+    public String uploadImage(MultipartFile file, UUID userId) throws IOException {
+        return uploadFile(MediaKind.IMAGE, file, userId);
     }
 
-    private static final long MAX_IMAGE_SIZE = 10 * 1024 * 1024; // 10MB
-    private static final long MAX_VIDEO_SIZE = 100 * 1024 * 1024; // 100MB
+    public String uploadVideo(MultipartFile file, UUID userId) throws IOException {
+        return uploadFile(MediaKind.VIDEO, file, userId);
+    }
 
-    public String uploadImage(MultipartFile file, UUID userId) throws IOException {
-        if (ossClient == null) {
-            throw new IllegalStateException("OSS client is not configured. Please set ALIYUN_ACCESS_KEY_ID and ALIYUN_ACCESS_KEY_SECRET environment variables.");
+    private String uploadFile(MediaKind kind, MultipartFile file, UUID userId) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return upload(kind, in, file.getSize(), file.getContentType(), file.getOriginalFilename(), userId);
         }
+    }
 
-        validateImageFile(file);
-
-        String fileName = generateFileName(file.getOriginalFilename(), userId);
-        String objectKey = "images/" + fileName;
+    // Streams the body to storage as it is read; contentLength must be the exact body size
+    public String upload(MediaKind kind, InputStream body, long contentLength, String contentType,
+                         String originalFilename, UUID userId) throws IOException {
+        return upload(kind, body, contentLength, contentType, originalFilename, userId, null);
+    }
 
-        uploadToOss(file.getInputStream(), objectKey, file.getContentType());
+    // Uploads of bytes already stored resolve to the stored object. With the body's SHA-256 given up front,
+    // such a body is only read and hashed, to prove the caller has those bytes, and never written.
+    // Otherwise the body is hashed once, while it is written to a staging key, and then either moved to
+    // its content key or dropped as a duplicate.
+    public String upload(MediaKind kind, InputStream body, long contentLength, String contentType,
+                         String originalFilename, UUID userId, String sha256) throws IOException {
+        kind.validate(contentLength, contentType);
+        if (sha256 != null && !SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid SHA-256");
+        }
+        String expectedSha256 = sha256 != null ? sha256.toLowerCase(Locale.ROOT) : null;
+
+        // Only the first bytes are buffered, to check them against the declared type
+        BufferedInputStream in = new BufferedInputStream(body);
+        in.mark(MediaSniffer.HEAD_LENGTH);
+        byte[] head = in.readNBytes(MediaSniffer.HEAD_LENGTH);
+        in.reset();
+        if (!MediaSniffer.matches(contentType, MediaSniffer.detect(head))) {
+            throw new IllegalArgumentException("File content does not match its type");
+        }
 
-        return generatePublicUrl(objectKey);
-    }
+        MessageDigest digest = sha256();
+        Optional<MediaObject> stored = expectedSha256 != null
+                ? mediaObjectRepository.findById(expectedSha256)
+                : Optional.empty();
+        if (stored.isPresent()) {
+            long read = in.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            if (read != contentLength) {
+                throw new IOException("Expected " + contentLength + " bytes but received " + read);
+            }
+            if (!expectedSha256.equals(HexFormat.of().formatHex(digest.digest()))) {
+                throw new IllegalArgumentException("File content does not match its SHA-256");
+            }
+            mediaObjectRepository.addReference(expectedSha256);
+            return storage.publicUrl(stored.get().getObjectKey());
+        }
 
-    public String uploadVideo(MultipartFile file, UUID userId) throws IOException {
-        if (ossClient == null) {
-            throw new IllegalStateException("OSS client is not configured. Please set ALIYUN_ACCESS_KEY_ID and ALIYUN_ACCESS_KEY_SECRET environment variables.");
+        String stagingKey = stagingKey(newObjectKey(kind, originalFilename, userId));
+        storage.put(stagingKey, new DigestInputStream(in, digest), contentLength, contentType);
+        String actualSha256 = HexFormat.of().formatHex(digest.digest());
+        if (expectedSha256 != null && !expectedSha256.equals(actualSha256)) {
+            storage.delete(stagingKey);
+            throw new IllegalArgumentException("File content does not match its SHA-256");
         }
 
-        validateVideoFile(file);
+        String objectKey = CONTENT_PREFIX + actualSha256;
+        boolean created = moveUnlessStored(stagingKey, objectKey);
+        String storedKey = mediaObjectRepository.register(actualSha256, objectKey, contentLength);
+        if (!storedKey.equals(objectKey)) {
+            // Stored before under a per-user key; the content key is not needed
+            if (created) {
+                storage.delete(objectKey);
+            }
+            return storage.publicUrl(storedKey);
+        }
+        if (created) {
+            accepted(kind, objectKey);
+        }
+        return storage.publicUrl(objectKey);
+    }
 
-        String fileName = generateFileName(file.getOriginalFilename(), userId);
-        String objectKey = "videos/" + fileName;
+    // Returns whether the object was created; false if the same bytes were already stored under the key
+    private boolean moveUnlessStored(String stagingKey, String objectKey) throws IOException {
+        if (storage.stat(objectKey).isEmpty()) {
+            try {
+                storage.move(stagingKey, objectKey);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                // Lost a race with a concurrent upload of the same bytes
+                if (storage.stat(objectKey).isEmpty()) {
+                    storage.delete(stagingKey);
+                    throw e;
+                }
+            }
+        }
+        storage.delete(stagingKey);
+        return false;
+    }
 
-        uploadToOss(file.getInputStream(), objectKey, file.getContentType());
+    // Lets the client upload straight to storage; the upload counts once complete() accepted it.
+    // The URL writes to a staging key, so it can no longer change the object once it is completed.
+    public PresignedUploadDto presign(MediaKind kind, String contentType, long size, String originalFilename,
+                                      UUID userId) {
+        kind.validate(size, contentType);
 
-        return generatePublicUrl(objectKey);
+        String objectKey = newObjectKey(kind, originalFilename, userId);
+        Instant expiresAt = Instant.now().plus(presignTtl);
+        String uploadUrl = storage.presignPut(stagingKey(objectKey), contentType, kind.maxSize(), expiresAt);
+        return new PresignedUploadDto(uploadUrl, objectKey, Map.of("Content-Type", contentType), expiresAt);
     }
 
-    private void validateImageFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File is empty");
+    // Checks a directly uploaded object as upload() checks a streamed one. It is moved out of reach of
+    // the upload URL first, so the bytes checked are the bytes kept.
+    public String complete(String objectKey, UUID userId) throws IOException {
+        MediaKind kind = MediaKind.fromKey(objectKey);
+        if (!objectKey.startsWith(kind.keyPrefix() + userId + "/")) {
+            throw new IllegalArgumentException("Upload not found");
         }
-
-        if (file.getSize() > MAX_IMAGE_SIZE) {
-            throw new IllegalArgumentException("Image file size exceeds 10MB");
+        String stagingKey = stagingKey(objectKey);
+        if (storage.stat(stagingKey).isEmpty()) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        if (storage.stat(objectKey).isPresent()) {
+            // The upload URL was used again after completion
+            storage.delete(stagingKey);
+            throw new IllegalArgumentException("Upload already completed");
         }
+        storage.move(stagingKey, objectKey);
+        return verifyStored(kind, objectKey);
+    }
 
-        String contentType = file.getContentType();
-        if (contentType == null ||
-                (!contentType.equals("image/jpeg") &&
-                        !contentType.equals("image/png") &&
-                        !contentType.equals("image/jpg"))) {
-            throw new IllegalArgumentException("Only JPG and PNG images are allowed");
+    // Checks an object the client can no longer write to; a rejected object is deleted
+    String verifyStored(MediaKind kind, String objectKey) throws IOException {
+        StoredObject object = storage.stat(objectKey)
+                .orElseThrow(() -> new IllegalArgumentException("Upload not found"));
+
+        try {
+            kind.validate(object.size(), object.contentType());
+            byte[] head = storage.readHead(objectKey, MediaSniffer.HEAD_LENGTH);
+            if (!MediaSniffer.matches(object.contentType(), MediaSniffer.detect(head))) {
+                throw new IllegalArgumentException("File content does not match its type");
+            }
+        } catch (IllegalArgumentException e) {
+            storage.delete(objectKey);
+            log.info("Rejected direct upload {}: {}", objectKey, e.getMessage());
+            throw e;
         }
+        accepted(kind, objectKey);
+        return storage.publicUrl(objectKey);
     }
 
-    private void validateVideoFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File is empty");
+    // Staging objects of direct uploads that were never completed. A client has presignTtl to upload and
+    // complete, so older ones are abandoned.
+    @Scheduled(fixedDelayString = "${storage.staging-expire-interval:PT1H}", initialDelay = 60_000)
+    public void expireStaging() {
+        try {
+            storage.expire(STAGING_PREFIX, presignTtl);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to expire staged uploads", e);
         }
+    }
 
-        if (file.getSize() > MAX_VIDEO_SIZE) {
-            throw new IllegalArgumentException("Video file size exceeds 100MB");
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        String contentType = file.getContentType();
-        if (contentType == null ||
-                (!contentType.equals("video/mp4") &&
-                        !contentType.equals("video/quicktime"))) {
-            throw new IllegalArgumentException("Only MP4 and MOV videos are allowed");
+    private void accepted(MediaKind kind, String objectKey) {
+        if (kind == MediaKind.IMAGE) {
+            derivativeService.submit(objectKey);
         }
     }
 
+    static String stagingKey(String objectKey) {
+        return STAGING_PREFIX + objectKey;
+    }
+
+    String newObjectKey(MediaKind kind, String originalFilename, UUID userId) {
+        return kind.keyPrefix() + generateFileName(originalFilename, userId);
+    }
+
     private String generateFileName(String originalFilename, UUID userId) {
         String extension = "";
         if (originalFilename != null && originalFilename.contains(".")) {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
+        // The name comes from the client and ends up in a key or path
+        if (!EXTENSION_PATTERN.matcher(extension).matches()) {
+            extension = "";
+        }
         return userId + "/" + System.currentTimeMillis() + "_" + UUID.randomUUID() + extension;
     }
-
-    private void uploadToOss(InputStream inputStream, String objectKey, String contentType) {
-        try {
-            PutObjectRequest request = new PutObjectRequest(
-                    ossProperties.getBucketName(),
-                    objectKey,
-                    inputStream
-            );
-            ossClient.putObject(request);
-            log.info("Uploaded file to OSS: {}", objectKey);
-        } catch (Exception e) {
-            log.error("Failed to upload file to OSS", e);
-            throw new RuntimeException("Failed to upload file", e);
-        }
-    }
-
-    private String generatePublicUrl(String objectKey) {
-        return "https://" + ossProperties.getBucketName() + "." +
-                ossProperties.getEndpoint().replace("https://", "") + "/" + objectKey;
-    }
 }
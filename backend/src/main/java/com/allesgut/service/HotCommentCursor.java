@@ -0,0 +1,50 @@
+package com.allesgut.service;
+
+import com.allesgut.entity.Comment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque keyset cursor for hot comment pages: (likes_count, created_at, id) of the last comment returned.
+// The position is carried by value, so new comments and likes far from it leave the next page as is. A
+// comment whose likes count crosses the cursor's between two requests moves to the other side of it and
+// is skipped or shown twice.
+record HotCommentCursor(int likesCount, LocalDateTime createdAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    static HotCommentCursor from(Comment comment) {
+        return new HotCommentCursor(
+                comment.getLikesCount() != null ? comment.getLikesCount() : 0,
+                comment.getCreatedAt(),
+                comment.getId()
+        );
+    }
+
+    static HotCommentCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return new HotCommentCursor(
+                    Integer.parseInt(parts[0]),
+                    LocalDateTime.parse(parts[1]),
+                    UUID.fromString(parts[2])
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = likesCount + SEPARATOR + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
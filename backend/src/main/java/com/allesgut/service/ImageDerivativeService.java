@@ -0,0 +1,156 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import com.allesgut.entity.ImageDerivative;
+import com.allesgut.repository.ImageDerivativeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Makes the feed-sized copies of uploaded images in the background: each image is decoded once, at the
+// lowest resolution that still covers the largest width, turned upright and scaled down step by step to
+// every configured width. The pool has at most one
+// worker per core, so resizing never takes CPU from more request threads than it has cores. Until
+// (or unless) the copies exist, clients show the original.
+@Slf4j
+@Service
+public class ImageDerivativeService implements SmartLifecycle {
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    // Enough for the segments before the image data of a JPEG, where EXIF sits
+    private static final int METADATA_LENGTH = 64 * 1024;
+
+    private final ObjectStorage storage;
+    private final ImageDerivativeRepository derivativeRepository;
+    private final List<Integer> widths;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+
+    private volatile boolean running;
+
+    public ImageDerivativeService(ObjectStorage storage, ImageDerivativeRepository derivativeRepository,
+                                  StorageProperties properties) {
+        StorageProperties.Derivatives derivatives = properties.getDerivatives();
+        this.storage = storage;
+        this.derivativeRepository = derivativeRepository;
+        // Largest first, so every copy is scaled from the previous one
+        this.widths = derivatives.getWidths().stream().sorted(Comparator.reverseOrder()).toList();
+        this.jpegQuality = derivatives.getJpegQuality();
+        this.maxPixels = derivatives.getMaxPixels();
+        int threads = derivatives.getWorkers() > 0
+                ? derivatives.getWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(derivatives.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    // Queues an uploaded image; called once the upload is accepted
+    public void submit(String objectKey) {
+        if (!running) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(objectKey);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to make derivatives of {}", objectKey, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The image stays usable at full size
+            log.warn("Image derivative queue is full, skipping {}", objectKey);
+        }
+    }
+
+    // Returns the widths made; none for images no wider than the smallest width
+    List<Integer> generate(String objectKey) throws IOException {
+        if (widths.isEmpty()) {
+            return List.of();
+        }
+        int orientation = ImageResizer.orientation(storage.readHead(objectKey, METADATA_LENGTH));
+        boolean sideways = orientation >= 5 && orientation <= 8;
+        ImageResizer.Decoded decoded;
+        try (InputStream in = storage.open(objectKey)) {
+            decoded = ImageResizer.decode(in, maxPixels, widths.get(0), sideways);
+        }
+        if (decoded == null) {
+            log.info("Not making derivatives of {}, image too large", objectKey);
+            return List.of();
+        }
+        BufferedImage image = ImageResizer.orient(decoded.image(), orientation);
+        int uprightWidth = sideways ? decoded.sourceHeight() : decoded.sourceWidth();
+
+        String sourceUrl = storage.publicUrl(objectKey);
+        List<ImageDerivative> derivatives = new ArrayList<>();
+        List<Integer> made = new ArrayList<>();
+        for (int width : widths) {
+            if (width >= uprightWidth) {
+                continue;
+            }
+            image = ImageResizer.scale(image, width);
+            byte[] jpeg = ImageResizer.encodeJpeg(image, jpegQuality);
+            String key = derivativeKey(objectKey, width);
+            storage.put(key, new ByteArrayInputStream(jpeg), jpeg.length, CONTENT_TYPE);
+            derivatives.add(ImageDerivative.builder()
+                    .sourceUrl(sourceUrl)
+                    .width(width)
+                    .url(storage.publicUrl(key))
+                    .build());
+            made.add(width);
+        }
+        // The same source may be processed again, by a retry or another node
+        derivatives.forEach(derivative -> derivativeRepository.insertIfAbsent(
+                derivative.getSourceUrl(), derivative.getWidth(), derivative.getUrl()));
+        return made;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Next to the original: images/<user>/<name>_w360.jpg
+    static String derivativeKey(String objectKey, int width) {
+        int dot = objectKey.lastIndexOf('.');
+        String base = dot > objectKey.lastIndexOf('/') ? objectKey.substring(0, dot) : objectKey;
+        return base + "_w" + width + ".jpg";
+    }
+}
@@ -0,0 +1,191 @@
+package com.allesgut.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+// Decoding, EXIF orientation, downscaling and JPEG encoding for ImageDerivativeService. Only pixels are
+// written out, so EXIF data (location, camera) of the original never reaches a derivative.
+final class ImageResizer {
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private ImageResizer() {
+    }
+
+    // The decoded pixels and the full size of the source they were read from
+    record Decoded(BufferedImage image, int sourceWidth, int sourceHeight) {}
+
+    // Returns null if the image is larger than maxPixels, checked before any pixel is decoded. Only every
+    // n-th pixel of every n-th row is decoded, for the largest n that keeps the upright image at least
+    // minWidth wide, so a large photo is never held at full resolution. sideways: the image is turned
+    // a quarter for display, so its height becomes its width.
+    static Decoded decode(InputStream image, long maxPixels, int minWidth, boolean sideways) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image)) {
+            if (in == null) {
+                throw new IOException("Unsupported image format");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                int subsampling = Math.max(1, (sideways ? height : width) / Math.max(1, minWidth));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new Decoded(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Turns the image upright as the EXIF orientation says and drops transparency onto white,
+    // since derivatives are JPEG
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5 && orientation <= 8;
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> new AffineTransform();
+        };
+
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, oriented.getWidth(), oriented.getHeight());
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // Halves the size in steps before the last bilinear step, which keeps detail a single
+    // bilinear step from far above would lose
+    static BufferedImage scale(BufferedImage image, int width) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+        }
+        if (current.getWidth() == width) {
+            return current;
+        }
+        int height = (int) Math.max(1, Math.round((double) image.getHeight() * width / image.getWidth()));
+        return draw(current, width, height);
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // The EXIF orientation (1 to 8) of a JPEG, 1 if it has none or it cannot be read
+    static int orientation(byte[] jpeg) {
+        try {
+            int offset = 2;
+            if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+                return 1;
+            }
+            // Walks the segments before the image data, looking for the APP1 segment holding EXIF
+            while (offset + 4 <= jpeg.length && (jpeg[offset] & 0xFF) == 0xFF) {
+                int marker = jpeg[offset + 1] & 0xFF;
+                int length = readShort(jpeg, offset + 2, false);
+                if (marker == 0xDA || length < 2) {
+                    return 1;
+                }
+                if (marker == 0xE1 && length >= 8 && offset + 10 <= jpeg.length
+                        && new String(jpeg, offset + 4, 6, StandardCharsets.US_ASCII)
+                        .equals("Exif\0\0")) {
+                    return exifOrientation(jpeg, offset + 10, offset + 2 + length);
+                }
+                offset += 2 + length;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // Truncated or malformed metadata
+        }
+        return 1;
+    }
+
+    // Reads the orientation entry of IFD0 in the TIFF structure starting at tiff
+    private static int exifOrientation(byte[] data, int tiff, int end) {
+        boolean littleEndian = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        int ifd = tiff + readInt(data, tiff + 4, littleEndian);
+        int entries = readShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (readShort(data, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,61 @@
+package com.allesgut.service;
+
+import com.allesgut.config.SmsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Stand-in for a real gateway in development, tests and benchmarks: logs the message and keeps the most
+// recent ones in memory, after an optional simulated latency.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sms.provider", havingValue = InMemorySmsProvider.NAME, matchIfMissing = true)
+public class InMemorySmsProvider implements SmsProvider {
+
+    static final String NAME = "in-memory";
+
+    private final long latencyMillis;
+    private final int capacity;
+    private final Deque<SentMessage> sent = new ArrayDeque<>();
+
+    public InMemorySmsProvider(SmsProperties properties) {
+        this.latencyMillis = properties.getInMemory().getLatency().toMillis();
+        this.capacity = properties.getInMemory().getCapacity();
+    }
+
+    public record SentMessage(String phone, String text) {}
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void send(String phone, String text) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("SMS to {}: {}", phone, text);
+        synchronized (sent) {
+            sent.addLast(new SentMessage(phone, text));
+            if (sent.size() > capacity) {
+                sent.removeFirst();
+            }
+        }
+    }
+
+    public List<SentMessage> sentMessages() {
+        synchronized (sent) {
+            return new ArrayList<>(sent);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Objects as files under a local directory, for development, tests and single-node deployments.
+// Upload URLs point at StorageController and carry an HMAC over what they allow.
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalObjectStorage implements ObjectStorage {
+
+    static final String PATH_PREFIX = "/api/storage/";
+
+    private final Path root;
+    private final String baseUrl;
+    private final byte[] signingKey;
+
+    public LocalObjectStorage(StorageProperties properties) {
+        StorageProperties.Local local = properties.getLocal();
+        this.root = Path.of(local.getRoot()).toAbsolutePath().normalize();
+        this.baseUrl = local.getBaseUrl();
+        if (local.getSigningSecret().isEmpty()) {
+            this.signingKey = new byte[32];
+            new SecureRandom().nextBytes(signingKey);
+        } else {
+            this.signingKey = local.getSigningSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Written to a temporary file and moved into place, so readers never see a partial object
+    @Override
+    public void put(String key, InputStream in, long length, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            long written = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (written != length) {
+                throw new IOException("Expected " + length + " bytes but received " + written);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String presignPut(String key, String contentType, long maxSize, Instant expiresAt) {
+        long expires = expiresAt.getEpochSecond();
+        return baseUrl + PATH_PREFIX + key +
+                "?contentType=" + URLEncoder.encode(contentType, StandardCharsets.UTF_8) +
+                "&maxSize=" + maxSize +
+                "&expires=" + expires +
+                "&signature=" + sign(key, contentType, maxSize, expires);
+    }
+
+    // True if the URL parameters were issued by presignPut for this key and have not expired
+    public boolean verifyPut(String key, String contentType, long maxSize, long expires, String signature) {
+        if (signature == null || Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        byte[] expected = sign(key, contentType, maxSize, expires).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // No metadata is kept beside the file; the type is read from its first bytes
+    @Override
+    public Optional<StoredObject> stat(String key) {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new StoredObject(Files.size(file),
+                    MediaSniffer.detect(readHead(key, MediaSniffer.HEAD_LENGTH))));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The file of an object, for StorageController to serve. Temporary files and multipart parts are hidden
+    // and never served. Objects are only ever replaced whole, by a rename, so size and modification time
+    // identify the content and make a strong ETag.
+    public Optional<LocalFile> file(String key) throws IOException {
+        Path file = resolve(key);
+        for (Path name : root.relativize(file)) {
+            if (name.toString().startsWith(".")) {
+                return Optional.empty();
+            }
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            String contentType = MediaSniffer.detect(readHead(key, MediaSniffer.HEAD_LENGTH));
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            return Optional.of(new LocalFile(file, attributes.size(),
+                    contentType != null ? contentType : "application/octet-stream",
+                    "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"",
+                    lastModified));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    public record LocalFile(Path path, long size, String contentType, String etag, long lastModified) {}
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public byte[] readHead(String key, int length) throws IOException {
+        try (InputStream in = Files.newInputStream(resolve(key))) {
+            return in.readNBytes(length);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A rename without replacing, so it fails if the target exists
+    @Override
+    public void move(String fromKey, String toKey) throws IOException {
+        Path target = resolve(toKey);
+        Files.createDirectories(target.getParent());
+        Files.move(resolve(fromKey), target);
+    }
+
+    // Files last modified more than maxAge ago
+    @Override
+    public void expire(String prefix, Duration maxAge) throws IOException {
+        Path directory = resolve(prefix);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(maxAge);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Moved or deleted meanwhile
+                }
+            }
+        }
+    }
+
+    // Parts are kept as files in a directory per upload until completion joins them
+    @Override
+    public String initiateMultipart(String key, String contentType) {
+        resolve(key);
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(multipartDirectory(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream in, long length)
+            throws IOException {
+        Path directory = multipartDirectory(uploadId);
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        Path temp = Files.createTempFile(directory, ".part-", ".tmp");
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            long written = Files.copy(new DigestInputStream(in, md5), temp, StandardCopyOption.REPLACE_EXISTING);
+            if (written != length) {
+                throw new IOException("Expected " + length + " bytes but received " + written);
+            }
+            Files.move(temp, directory.resolve(Integer.toString(partNumber)),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return HexFormat.of().formatHex(md5.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Parts are appended with transferTo, so their bytes are copied by the kernel without passing through the heap
+    @Override
+    public void completeMultipart(String key, String uploadId, List<CompletedPart> parts) throws IOException {
+        Path directory = multipartDirectory(uploadId);
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (CompletedPart part : parts) {
+                    try (FileChannel in = FileChannel.open(directory.resolve(Integer.toString(part.partNumber())))) {
+                        long position = 0;
+                        long size = in.size();
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        deleteDirectory(directory);
+    }
+
+    @Override
+    public void abortMultipart(String key, String uploadId) {
+        try {
+            deleteDirectory(multipartDirectory(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return baseUrl + PATH_PREFIX + key;
+    }
+
+    // Rejects keys that would leave the storage directory
+    Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid object key");
+        }
+        return file;
+    }
+
+    // Outside the key space: object keys start with images/ or videos/
+    private Path multipartDirectory(String uploadId) {
+        return root.resolve(".multipart").resolve(UUID.fromString(uploadId).toString());
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private String sign(String key, String contentType, long maxSize, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+            String payload = "PUT\n" + key + "\n" + contentType + "\n" + maxSize + "\n" + expires;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.allesgut.service;
+
+import java.util.Set;
+
+public enum MediaKind {
+    IMAGE("images/", 10 * 1024 * 1024, Set.of("image/jpeg", "image/png", "image/jpg"),
+            "Image file size exceeds 10MB", "Only JPG and PNG images are allowed"),
+    VIDEO("videos/", 100 * 1024 * 1024, Set.of("video/mp4", "video/quicktime"),
+            "Video file size exceeds 100MB", "Only MP4 and MOV videos are allowed");
+
+    private final String keyPrefix;
+    private final long maxSize;
+    private final Set<String> contentTypes;
+    private final String tooLargeMessage;
+    private final String unsupportedTypeMessage;
+
+    MediaKind(String keyPrefix, long maxSize, Set<String> contentTypes,
+              String tooLargeMessage, String unsupportedTypeMessage) {
+        this.keyPrefix = keyPrefix;
+        this.maxSize = maxSize;
+        this.contentTypes = contentTypes;
+        this.tooLargeMessage = tooLargeMessage;
+        this.unsupportedTypeMessage = unsupportedTypeMessage;
+    }
+
+    // Path segment of the upload endpoints: "image" or "video"
+    public static MediaKind fromPath(String kind) {
+        for (MediaKind mediaKind : values()) {
+            if (mediaKind.name().equalsIgnoreCase(kind)) {
+                return mediaKind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown upload kind: " + kind);
+    }
+
+    // Kind of an object key made by FileUploadService
+    public static MediaKind fromKey(String objectKey) {
+        for (MediaKind mediaKind : values()) {
+            if (objectKey.startsWith(mediaKind.keyPrefix)) {
+                return mediaKind;
+            }
+        }
+        throw new IllegalArgumentException("Upload not found");
+    }
+
+    public String keyPrefix() {
+        return keyPrefix;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    void validate(long size, String contentType) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        if (size > maxSize) {
+            throw new IllegalArgumentException(tooLargeMessage);
+        }
+        if (contentType == null || !contentTypes.contains(contentType)) {
+            throw new IllegalArgumentException(unsupportedTypeMessage);
+        }
+    }
+}
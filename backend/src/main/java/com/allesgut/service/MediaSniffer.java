@@ -0,0 +1,63 @@
+package com.allesgut.service;
+
+import java.nio.charset.StandardCharsets;
+
+// Tells the actual type of an upload from its first bytes, so a declared content type cannot smuggle
+// in another kind of file.
+final class MediaSniffer {
+
+    // Enough for every signature below
+    static final int HEAD_LENGTH = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private MediaSniffer() {
+    }
+
+    // Returns the content type the bytes start like, or null if none of the accepted ones
+    static String detect(byte[] head) {
+        if (startsWith(head, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, PNG)) {
+            return "image/png";
+        }
+        if (head.length >= HEAD_LENGTH) {
+            // ISO base media (MP4) and QuickTime files start with a box: 4 bytes size, 4 bytes type
+            String box = new String(head, 4, 4, StandardCharsets.ISO_8859_1);
+            if (box.equals("ftyp")) {
+                String brand = new String(head, 8, 4, StandardCharsets.ISO_8859_1);
+                return brand.equals("qt  ") ? "video/quicktime" : "video/mp4";
+            }
+            if (box.equals("moov") || box.equals("mdat") || box.equals("wide") || box.equals("free")) {
+                return "video/quicktime";
+            }
+        }
+        return null;
+    }
+
+    // Video brands vary between encoders, so any video container is accepted for either video type
+    static boolean matches(String declaredType, String detectedType) {
+        if (detectedType == null || declaredType == null) {
+            return false;
+        }
+        if (declaredType.startsWith("video/")) {
+            return detectedType.startsWith("video/");
+        }
+        String declared = declaredType.equals("image/jpg") ? "image/jpeg" : declaredType;
+        return declared.equals(detectedType);
+    }
+
+    private static boolean startsWith(byte[] head, byte[] signature) {
+        if (head.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (head[i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
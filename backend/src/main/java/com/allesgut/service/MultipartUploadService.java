@@ -0,0 +1,245 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import com.allesgut.dto.response.MultipartUploadDto;
+import com.allesgut.entity.MultipartUpload;
+import com.allesgut.entity.MultipartUploadPart;
+import com.allesgut.exception.UploadsBusyException;
+import com.allesgut.repository.MultipartUploadPartRepository;
+import com.allesgut.repository.MultipartUploadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Resumable uploads on top of the object store's multipart upload. The upload and its received parts
+// are recorded in the database, so a client that lost its connection asks which parts arrived and sends
+// only the rest, to any node. A part body is spooled to a temporary file on its request thread, so a slow
+// client only holds its own connection, and the spooled parts go to the store on a bounded pool, so many
+// parallel part requests cannot take over the server.
+@Slf4j
+@Service
+public class MultipartUploadService implements SmartLifecycle {
+
+    private static final int EXPIRE_BATCH_SIZE = 100;
+
+    private final ObjectStorage storage;
+    private final FileUploadService fileUploadService;
+    private final MultipartUploadRepository uploadRepository;
+    private final MultipartUploadPartRepository partRepository;
+    private final long partSize;
+    private final Duration expireAfter;
+    private final ThreadPoolExecutor partExecutor;
+
+    private volatile boolean running;
+
+    public MultipartUploadService(ObjectStorage storage, FileUploadService fileUploadService,
+                                  MultipartUploadRepository uploadRepository,
+                                  MultipartUploadPartRepository partRepository,
+                                  StorageProperties properties) {
+        StorageProperties.Multipart multipart = properties.getMultipart();
+        this.storage = storage;
+        this.fileUploadService = fileUploadService;
+        this.uploadRepository = uploadRepository;
+        this.partRepository = partRepository;
+        this.partSize = multipart.getPartSize();
+        this.expireAfter = multipart.getExpireAfter();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.partExecutor = new ThreadPoolExecutor(multipart.getWorkers(), multipart.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(multipart.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-part-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public MultipartUploadDto initiate(MediaKind kind, String contentType, long size, String originalFilename,
+                                       UUID userId) {
+        kind.validate(size, contentType);
+
+        String objectKey = fileUploadService.newObjectKey(kind, originalFilename, userId);
+        MultipartUpload upload = uploadRepository.save(MultipartUpload.builder()
+                .userId(userId)
+                .objectKey(objectKey)
+                .storageUploadId(storage.initiateMultipart(objectKey, contentType))
+                .contentType(contentType)
+                .size(size)
+                .partSize(partSize)
+                .build());
+        return toDto(upload, List.of());
+    }
+
+    // Completes once the part is stored. The body is read here, on the request thread, where the connector's
+    // read timeout bounds a stalled client; the part pool only moves the spooled file to the store.
+    public CompletableFuture<Integer> uploadPart(UUID uploadId, int partNumber, InputStream body, long length,
+                                                 UUID userId) {
+        MultipartUpload upload = findOwned(uploadId, userId);
+        int partCount = partCount(upload);
+        if (partNumber < 1 || partNumber > partCount) {
+            throw new IllegalArgumentException("Part number must be between 1 and " + partCount);
+        }
+        long expectedLength = partNumber < partCount
+                ? upload.getPartSize()
+                : upload.getSize() - (long) (partCount - 1) * upload.getPartSize();
+        if (length != expectedLength) {
+            throw new IllegalArgumentException("Part " + partNumber + " must be " + expectedLength + " bytes");
+        }
+        if (!running) {
+            throw new UploadsBusyException("Uploads are not available");
+        }
+        // Refused before reading the body, which would otherwise be spooled only to be dropped
+        if (partExecutor.getQueue().remainingCapacity() == 0) {
+            throw new UploadsBusyException("Too many part uploads in progress");
+        }
+
+        Path spooled;
+        try {
+            spooled = spool(body, length);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (InputStream in = Files.newInputStream(spooled)) {
+                    String etag = storage.uploadPart(upload.getObjectKey(), upload.getStorageUploadId(),
+                            partNumber, in, length);
+                    partRepository.upsert(uploadId, partNumber, etag, length);
+                    return partNumber;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    deleteSpooled(spooled);
+                }
+            }, partExecutor);
+        } catch (RejectedExecutionException e) {
+            deleteSpooled(spooled);
+            throw new UploadsBusyException("Too many part uploads in progress");
+        }
+    }
+
+    public MultipartUploadDto status(UUID uploadId, UUID userId) {
+        MultipartUpload upload = findOwned(uploadId, userId);
+        return toDto(upload, partRepository.findByUploadIdOrderByPartNumber(uploadId));
+    }
+
+    // Joins the parts into the object, which is then checked like any direct upload
+    public String complete(UUID uploadId, UUID userId) throws IOException {
+        MultipartUpload upload = findOwned(uploadId, userId);
+        List<MultipartUploadPart> parts = partRepository.findByUploadIdOrderByPartNumber(uploadId);
+        int partCount = partCount(upload);
+        if (parts.size() != partCount) {
+            throw new IllegalArgumentException("Upload is missing " + (partCount - parts.size()) + " parts");
+        }
+
+        storage.completeMultipart(upload.getObjectKey(), upload.getStorageUploadId(), parts.stream()
+                .map(part -> new CompletedPart(part.getPartNumber(), part.getEtag()))
+                .toList());
+        uploadRepository.delete(upload);
+        return fileUploadService.verifyStored(MediaKind.fromKey(upload.getObjectKey()), upload.getObjectKey());
+    }
+
+    public void abort(UUID uploadId, UUID userId) {
+        MultipartUpload upload = findOwned(uploadId, userId);
+        storage.abortMultipart(upload.getObjectKey(), upload.getStorageUploadId());
+        uploadRepository.delete(upload);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.multipart.expire-interval:PT1H}", initialDelay = 60_000)
+    public void expire() {
+        List<MultipartUpload> expired = uploadRepository.findByCreatedAtBeforeOrderByCreatedAt(
+                LocalDateTime.now().minus(expireAfter), PageRequest.of(0, EXPIRE_BATCH_SIZE));
+        for (MultipartUpload upload : expired) {
+            try {
+                storage.abortMultipart(upload.getObjectKey(), upload.getStorageUploadId());
+            } catch (RuntimeException e) {
+                // Already gone from the store; the record goes anyway
+                log.debug("Failed to abort multipart upload {}", upload.getId(), e);
+            }
+            uploadRepository.delete(upload);
+        }
+        if (!expired.isEmpty()) {
+            log.info("Aborted {} expired multipart uploads", expired.size());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        partExecutor.shutdown();
+        try {
+            partExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private MultipartUpload findOwned(UUID uploadId, UUID userId) {
+        return uploadRepository.findById(uploadId)
+                .filter(upload -> upload.getUserId().equals(userId))
+                .orElseThrow(() -> new IllegalArgumentException("Upload not found"));
+    }
+
+    private static Path spool(InputStream body, long length) throws IOException {
+        Path spooled = Files.createTempFile("upload-part-", ".tmp");
+        try {
+            long received;
+            try (OutputStream out = Files.newOutputStream(spooled)) {
+                received = body.transferTo(out);
+            }
+            if (received != length) {
+                throw new IOException("Expected " + length + " bytes but received " + received);
+            }
+            return spooled;
+        } catch (IOException | RuntimeException e) {
+            deleteSpooled(spooled);
+            throw e;
+        }
+    }
+
+    private static void deleteSpooled(Path spooled) {
+        try {
+            Files.deleteIfExists(spooled);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled part {}", spooled, e);
+        }
+    }
+
+    private static int partCount(MultipartUpload upload) {
+        return (int) ((upload.getSize() + upload.getPartSize() - 1) / upload.getPartSize());
+    }
+
+    private static MultipartUploadDto toDto(MultipartUpload upload, List<MultipartUploadPart> parts) {
+        return new MultipartUploadDto(upload.getId(), upload.getObjectKey(), upload.getPartSize(),
+                partCount(upload), parts.stream().map(MultipartUploadPart::getPartNumber).toList());
+    }
+}
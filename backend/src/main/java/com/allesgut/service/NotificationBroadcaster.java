@@ -0,0 +1,160 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.entity.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Relays written notifications to the stream hubs of the other nodes over Postgres LISTEN/NOTIFY.
+// Every node listens on one dedicated connection outside the pool and ignores its own messages, which
+// its hub has already delivered. Delivery is best effort: a node that is disconnected misses messages,
+// and its clients catch up on their next list load or stream resume.
+@Slf4j
+@Component
+public class NotificationBroadcaster implements SmartLifecycle {
+
+    private static final String CHANNEL = "notifications";
+    // One round trip for the whole batch; json keeps each element's text as sent
+    private static final String NOTIFY = "select count(pg_notify('" + CHANNEL + "', e::text)) " +
+            "from json_array_elements(cast(? as json)) e";
+    // Postgres rejects payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+    private static final int POLL_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final NotificationStreamHub streamHub;
+    private final boolean enabled;
+    private final UUID nodeId = UUID.randomUUID();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public NotificationBroadcaster(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                   ObjectMapper objectMapper, NotificationStreamHub streamHub,
+                                   NotificationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.streamHub = streamHub;
+        this.enabled = properties.getStream().isBroadcast();
+    }
+
+    record Message(UUID node, Notification notification) {}
+
+    // Joins the caller's transaction: Postgres delivers the messages when it commits and drops them on rollback
+    public void broadcast(List<Notification> notifications) {
+        if (!enabled || notifications.isEmpty()) {
+            return;
+        }
+        List<String> payloads = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            try {
+                String payload = objectMapper.writeValueAsString(new Message(nodeId, notification));
+                if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                    log.debug("Not broadcasting notification {}, payload too large", notification.getId());
+                    continue;
+                }
+                payloads.add(payload);
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize notification {} for broadcast", notification.getId(), e);
+            }
+        }
+        if (!payloads.isEmpty()) {
+            jdbcTemplate.queryForObject(NOTIFY, Long.class, "[" + String.join(",", payloads) + "]");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "notification-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            try {
+                listener.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        long backoffMillis = 1_000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                backoffMillis = 1_000;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the notification broadcast connection, reconnecting in {} ms", backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            Message message = objectMapper.readValue(payload, Message.class);
+            if (!nodeId.equals(message.node())) {
+                streamHub.publish(message.notification());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable notification broadcast");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.allesgut.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Remembers recently accepted events so like/unlike/like toggling or retried requests do not
+// produce another notification. Bounded; the oldest keys are forgotten first.
+class NotificationDeduplicator {
+
+    private final long windowNanos;
+    private final Map<Key, Long> seenAt;
+
+    NotificationDeduplicator(Duration window, int capacity) {
+        this.windowNanos = window.toNanos();
+        this.seenAt = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Returns false if the same event was accepted within the window
+    synchronized boolean accept(NotificationEvent event) {
+        return accept(event, System.nanoTime());
+    }
+
+    synchronized boolean accept(NotificationEvent event, long nowNanos) {
+        Key key = new Key(event.userId(), event.type(), event.actorId(), event.relatedId());
+        Long previous = seenAt.get(key);
+        if (previous != null && nowNanos - previous < windowNanos) {
+            return false;
+        }
+        // Re-insert so the key moves to the young end of the map
+        seenAt.remove(key);
+        seenAt.put(key, nowNanos);
+        return true;
+    }
+
+    private record Key(UUID userId, String type, UUID actorId, UUID relatedId) {}
+}
@@ -0,0 +1,22 @@
+package com.allesgut.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A notification waiting to be written. The id and timestamp are fixed when the event is created,
+// so replaying it from the outbox after a crash never produces a second row.
+public record NotificationEvent(
+        UUID id,
+        UUID userId,
+        String type,
+        UUID actorId,
+        UUID relatedId,
+        String template,
+        String content,
+        LocalDateTime createdAt
+) {
+    public static NotificationEvent of(UUID userId, NotificationTemplate template, UUID actorId, UUID relatedId) {
+        return new NotificationEvent(UUID.randomUUID(), userId, template.type(), actorId, relatedId,
+                template.name(), null, LocalDateTime.now());
+    }
+}
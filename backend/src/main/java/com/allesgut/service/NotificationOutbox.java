@@ -0,0 +1,260 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Append-only journal of notifications that have been committed but not yet written to the database.
+// Events are appended to numbered segment files as JSON lines; a segment is deleted once it has been
+// rotated out and every event in it has been acknowledged. Segments left behind by a crash are
+// returned by open() and replayed.
+// The journal is node-local and appended after the publishing transaction commits, so a crash between
+// that commit and the append loses the notification. This is deliberate: notifications are best effort,
+// and journaling them in the publishing transaction would add a database write to every request that
+// notifies. An appended event survives a crash of the process at once; appends only reach the OS, and
+// the writer forces them to disk with one sync() per batch, off the request thread.
+@Slf4j
+@Component
+public class NotificationOutbox {
+
+    // Marks events that could not be journaled; acknowledging them is a no-op
+    public static final long NO_SEGMENT = -1;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Integer> pendingBySegment = new HashMap<>();
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private long activeSegment;
+    private FileChannel activeChannel;
+    private int activeCount;
+    // Rotated out; forced to disk and closed by the next sync()
+    private final List<FileChannel> unsynced = new ArrayList<>();
+    private boolean activeDirty;
+    private boolean directoryDirty;
+
+    public NotificationOutbox(NotificationProperties properties, ObjectMapper objectMapper) {
+        this.directory = Paths.get(properties.getWriter().getOutboxDirectory());
+        this.segmentSize = properties.getWriter().getSegmentSize();
+        this.objectMapper = objectMapper;
+    }
+
+    public record Entry(NotificationEvent event, long segment) {}
+
+    // Locks the outbox directory and returns the events of segments left over by a previous run, oldest first
+    public synchronized List<Entry> open() {
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve("outbox.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Notification outbox " + directory + " is used by another process");
+            }
+
+            List<Entry> recovered = new ArrayList<>();
+            for (long segment : listSegments()) {
+                int count = 0;
+                for (String line : Files.readAllLines(segmentPath(segment), StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        recovered.add(new Entry(objectMapper.readValue(line, NotificationEvent.class), segment));
+                        count++;
+                    } catch (JsonProcessingException e) {
+                        // A torn last line from a crash mid-append
+                        log.warn("Skipping unreadable notification outbox entry in segment {}", segment);
+                    }
+                }
+                if (count == 0) {
+                    Files.deleteIfExists(segmentPath(segment));
+                } else {
+                    pendingBySegment.put(segment, count);
+                }
+                activeSegment = Math.max(activeSegment, segment);
+            }
+            return recovered;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open notification outbox " + directory, e);
+        }
+    }
+
+    // Returns the segment the event was journaled in
+    public synchronized long append(NotificationEvent event) {
+        try {
+            if (activeChannel == null || activeCount >= segmentSize) {
+                rotate();
+            }
+            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(event) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                activeChannel.write(line);
+            }
+            activeDirty = true;
+            activeCount++;
+            pendingBySegment.merge(activeSegment, 1, Integer::sum);
+            return activeSegment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to notification outbox", e);
+        }
+    }
+
+    // Forces what was appended so far to disk. Runs outside the lock, so appends never wait for the disk.
+    public void sync() {
+        List<FileChannel> rotated;
+        FileChannel active = null;
+        boolean syncDirectory;
+        synchronized (this) {
+            rotated = new ArrayList<>(unsynced);
+            unsynced.clear();
+            if (activeDirty && activeChannel != null) {
+                active = activeChannel;
+                activeDirty = false;
+            }
+            syncDirectory = directoryDirty;
+            directoryDirty = false;
+        }
+        if (syncDirectory) {
+            syncDirectory();
+        }
+        for (FileChannel channel : rotated) {
+            force(channel);
+            closeQuietly(channel);
+        }
+        if (active != null) {
+            force(active);
+        }
+    }
+
+    private void force(FileChannel channel) {
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Closed by close(), which forced it first
+        } catch (IOException e) {
+            log.warn("Failed to sync notification outbox", e);
+        }
+    }
+
+    public synchronized void acknowledge(long segment, int count) {
+        Integer remaining = pendingBySegment.computeIfPresent(segment, (key, pending) -> pending - count);
+        if (remaining != null && remaining <= 0) {
+            pendingBySegment.remove(segment);
+            if (segment != activeSegment || activeChannel == null) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            for (FileChannel channel : unsynced) {
+                channel.force(false);
+                channel.close();
+            }
+            unsynced.clear();
+            if (activeChannel != null) {
+                activeChannel.force(false);
+                activeChannel.close();
+                activeChannel = null;
+                if (!pendingBySegment.containsKey(activeSegment)) {
+                    deleteSegment(activeSegment);
+                }
+            }
+            if (lock != null) {
+                lock.release();
+                lockChannel.close();
+                lock = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close notification outbox", e);
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (activeChannel != null) {
+            // A sync() may still be forcing it, so the next one closes it
+            unsynced.add(activeChannel);
+            if (!pendingBySegment.containsKey(activeSegment)) {
+                deleteSegment(activeSegment);
+            }
+        }
+        activeSegment++;
+        activeCount = 0;
+        activeDirty = false;
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        directoryDirty = true;
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close notification outbox segment", e);
+        }
+    }
+
+    // Makes the new segment's directory entry durable too; not supported on every platform
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync notification outbox directory {}", directory, e);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private void deleteSegment(long segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            log.warn("Failed to delete notification outbox segment {}", segment, e);
+        }
+    }
+}
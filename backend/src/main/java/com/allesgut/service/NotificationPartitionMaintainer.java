@@ -0,0 +1,199 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.repository.NotificationStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+// Keeps the monthly partitions of notifications: finishes the online move of the old single table
+// (see V016), creates upcoming partitions, drops partitions past retention and trims users above the
+// optional per-user cap. Every step runs under a transaction-scoped advisory lock, so only one node works at a time.
+@Slf4j
+@Component
+public class NotificationPartitionMaintainer {
+
+    private static final String PARTITION_PREFIX = "notifications_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'uuuu'm'MM");
+    private static final String LOCK = "select pg_try_advisory_xact_lock(hashtext('notification_partitions'))";
+
+    // Rows already past retention are left behind: their month has no partition to go to.
+    // The key share lock makes a concurrent delete of a batch row wait until the copy commits, so its
+    // mirror trigger then finds the copy and removes it; otherwise the copy would bring the row back.
+    // Updates do not take a conflicting lock, and the trigger's upsert already waits for the copied row.
+    private static final String COPY_BATCH = "with batch as (" +
+            "    select * from notifications n where n.id > coalesce(cast(? as uuid), " +
+            "    '00000000-0000-0000-0000-000000000000') and n.created_at >= ? order by n.id limit ? " +
+            "    for key share), " +
+            "copied as (insert into notifications_partitioned select * from batch on conflict do nothing) " +
+            "select max(id::text) from batch";
+
+    // Past the cap, a user's oldest notifications are deleted
+    private static final String TRIM_USERS = "delete from notifications n using (" +
+            "    select r.id, r.created_at from (" +
+            "        select id, created_at, row_number() over (partition by user_id order by created_at desc) as rn " +
+            "        from notifications where user_id in (%s)) r " +
+            "    where r.rn > ?) d " +
+            "where n.id = d.id and n.created_at = d.created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationStateRepository notificationStateRepository;
+    private final UnreadNotificationCounter unreadCounter;
+    private final NotificationProperties.Retention retention;
+
+    // Last user trimmed; trimming walks all users in user id order, one batch per run
+    private UUID trimmedUpTo;
+
+    public NotificationPartitionMaintainer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           NotificationStateRepository notificationStateRepository,
+                                           UnreadNotificationCounter unreadCounter,
+                                           NotificationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.notificationStateRepository = notificationStateRepository;
+        this.unreadCounter = unreadCounter;
+        this.retention = properties.getRetention();
+    }
+
+    // Copies one batch of the old table per run and swaps the tables once everything is copied
+    @Scheduled(fixedDelayString = "${notifications.retention.migration-interval:PT5S}", initialDelay = 10_000)
+    public void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!locked() || migrated()) {
+                return;
+            }
+            String copiedUpTo = jdbcTemplate.queryForObject(
+                    "select cast(copied_up_to as text) from notification_partition_migration", String.class);
+            String last = jdbcTemplate.queryForObject(COPY_BATCH, String.class,
+                    copiedUpTo, oldestKept().atDay(1).atStartOfDay(), retention.getMigrationBatchSize());
+            if (last != null) {
+                jdbcTemplate.update("update notification_partition_migration set copied_up_to = cast(? as uuid)", last);
+                return;
+            }
+
+            // Rows inserted meanwhile were mirrored by the trigger; the lock keeps new ones out during the swap
+            jdbcTemplate.execute("lock table notifications in access exclusive mode");
+            jdbcTemplate.execute("drop trigger notifications_mirror on notifications");
+            jdbcTemplate.execute("alter table notifications rename to notifications_legacy");
+            jdbcTemplate.execute("alter table notifications_partitioned rename to notifications");
+            jdbcTemplate.update("update notification_partition_migration set completed_at = now()");
+            log.info("Moved notifications to the partitioned table; the old table is kept as notifications_legacy");
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.retention.maintenance-interval:PT1H}", initialDelay = 30_000)
+    public void maintainPartitions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!locked()) {
+                return;
+            }
+            boolean migrated = migrated();
+            String parent = migrated ? "notifications" : "notifications_partitioned";
+            YearMonth current = YearMonth.now();
+            for (int ahead = 0; ahead <= retention.getPartitionsAhead(); ahead++) {
+                createPartition(parent, current.plusMonths(ahead));
+            }
+            // Retention starts with the partitioned table in service, so it only has to handle one table
+            if (!migrated) {
+                return;
+            }
+
+            // Whole months older than retention; their rows go without DELETE or vacuum
+            YearMonth oldestKept = oldestKept();
+            List<String> partitions = jdbcTemplate.queryForList(
+                    "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+                    "where i.inhparent = cast(? as regclass) and c.relname like 'notifications\\_y%'",
+                    String.class, parent);
+            for (String partition : partitions) {
+                YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+                if (month.isBefore(oldestKept)) {
+                    jdbcTemplate.execute("alter table " + parent + " detach partition " + partition);
+                    jdbcTemplate.execute("drop table " + partition);
+                    log.info("Dropped expired notification partition {}", partition);
+                }
+            }
+
+            // Rows of months without a partition, such as old rows mirrored during the move, sit in the
+            // default partition; left there they would keep their month from ever being attached
+            int deleted = jdbcTemplate.update("delete from notifications_default where created_at < ?",
+                    oldestKept.atDay(1).atStartOfDay());
+            if (deleted > 0) {
+                log.info("Deleted {} expired notifications from the default partition", deleted);
+            }
+        });
+    }
+
+    // Deletes notifications beyond the per-user cap, one batch of users per run
+    @Scheduled(fixedDelayString = "${notifications.retention.trim-interval:PT1M}", initialDelay = 60_000)
+    public void trimUsers() {
+        if (retention.getMaxPerUser() <= 0) {
+            return;
+        }
+        int batchSize = retention.getTrimBatchSize();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!locked()) {
+                return;
+            }
+            List<UUID> userIds = trimmedUpTo == null
+                    ? notificationStateRepository.findUserIds(batchSize)
+                    : notificationStateRepository.findUserIdsAfter(trimmedUpTo, batchSize);
+            if (userIds.isEmpty()) {
+                trimmedUpTo = null;
+                return;
+            }
+
+            String placeholders = String.join(", ", userIds.stream().map(id -> "?").toList());
+            Object[] args = new Object[userIds.size() + 1];
+            for (int i = 0; i < userIds.size(); i++) {
+                args[i] = userIds.get(i);
+            }
+            args[userIds.size()] = retention.getMaxPerUser();
+            int deleted = jdbcTemplate.update(String.format(TRIM_USERS, placeholders), args);
+            if (deleted > 0) {
+                // Trimmed rows may have been unread
+                notificationStateRepository.reconcileUnreadCounts(userIds);
+                userIds.forEach(unreadCounter::invalidate);
+                log.debug("Trimmed {} notifications of {} users", deleted, userIds.size());
+            }
+            trimmedUpTo = userIds.size() < batchSize ? null : userIds.get(userIds.size() - 1);
+        });
+    }
+
+    private void createPartition(String parent, YearMonth month) {
+        String partition = PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+        try {
+            jdbcTemplate.execute("savepoint create_partition");
+            jdbcTemplate.execute(String.format(
+                    "create table if not exists %s partition of %s for values from ('%s') to ('%s')",
+                    partition, parent, month.atDay(1), month.plusMonths(1).atDay(1)));
+            jdbcTemplate.execute("release savepoint create_partition");
+        } catch (DataAccessException e) {
+            // Rows of that month already sit in the default partition; they need moving by hand
+            jdbcTemplate.execute("rollback to savepoint create_partition");
+            log.warn("Failed to create notification partition {}", partition, e);
+        }
+    }
+
+    private YearMonth oldestKept() {
+        return YearMonth.now().minusMonths(retention.getMonths());
+    }
+
+    private boolean locked() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK, Boolean.class));
+    }
+
+    private boolean migrated() {
+        return jdbcTemplate.queryForObject(
+                "select completed_at is not null from notification_partition_migration", Boolean.class);
+    }
+}
@@ -1,20 +1,28 @@
 package com.allesgut.service;
 
+import com.allesgut.config.NotificationProperties;
 import com.allesgut.dto.response.NotificationDto;
 import com.allesgut.dto.response.PageResponse;
-import com.allesgut.dto.response.UserDto;
+import com.allesgut.dto.response.PublicUserDto;
 import com.allesgut.entity.Notification;
-import com.allesgut.entity.User;
+import com.allesgut.entity.NotificationState;
 import com.allesgut.repository.NotificationRepository;
-import com.allesgut.repository.UserRepository;
+import com.allesgut.repository.NotificationStateRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,97 +31,148 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationStateRepository notificationStateRepository;
+    private final UnreadNotificationCounter unreadCounter;
+    private final ActorCache actorCache;
+    private final NotificationProperties properties;
+
+    // Notifications are written asynchronously once the caller's transaction commits (see NotificationWriter)
+    public void createNotification(UUID userId, NotificationTemplate template, UUID actorId, UUID relatedId) {
+        eventPublisher.publishEvent(NotificationEvent.of(userId, template, actorId, relatedId));
+    }
 
-    @Transactional
-    public void createNotification(UUID userId, String type, UUID actorId, UUID relatedId, String content) {
-        Notification notification = Notification.builder()
-                .userId(userId)
-                .type(type)
-                .actorId(actorId)
-                .relatedId(relatedId)
-                .content(content)
-                .isRead(false)
-                .build();
-
-        notificationRepository.save(notification);
+    public void createNotifications(List<NotificationEvent> notifications) {
+        notifications.forEach(eventPublisher::publishEvent);
     }
 
     @Transactional(readOnly = true)
     public PageResponse<NotificationDto> getNotifications(UUID userId, int page, int limit) {
         Pageable pageable = PageRequest.of(page, limit);
+        LocalDateTime since = listedSince();
         Page<Notification> notificationsPage = notificationRepository
-                .findByUserIdOrderByCreatedAtDesc(userId, pageable);
-
-        List<NotificationDto> notifications = notificationsPage.getContent().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+                .findRecentByUserId(userId, since, createdSince(since), pageable);
+        LocalDateTime lastReadAt = notificationStateRepository.findById(userId)
+                .map(NotificationState::getLastReadAt)
+                .orElse(null);
 
+        List<NotificationDto> notifications = toDtos(notificationsPage.getContent(), lastReadAt);
         return PageResponse.of(notifications, page, limit, notificationsPage.getTotalElements());
     }
 
-    @Transactional(readOnly = true)
     public long getUnreadCount(UUID userId) {
-        return notificationRepository.countByUserIdAndIsRead(userId, false);
+        return unreadCounter.get(userId);
     }
 
     @Transactional
     public void markAsRead(UUID notificationId, UUID userId) {
-        Notification notification = notificationRepository.findById(notificationId)
+        // Only notifications the list can show are marked one by one; the id alone would be looked up in
+        // every monthly partition
+        LocalDateTime createdSince = createdSince(listedSince());
+        if (notificationRepository.markAsRead(notificationId, userId, createdSince) == 1) {
+            notificationStateRepository.adjustUnreadCount(userId, -1);
+            unreadCounter.invalidate(userId);
+            return;
+        }
+
+        // Nothing changed: tell a missing or foreign notification apart from one that was already read
+        Notification notification = notificationRepository.findByIdAndCreatedAtAfter(notificationId, createdSince)
                 .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
 
         if (!notification.getUserId().equals(userId)) {
             throw new IllegalArgumentException("Not authorized to mark this notification as read");
         }
-
-        notification.setRead(true);
-        notificationRepository.save(notification);
     }
 
     @Transactional
     public void markAllAsRead(UUID userId) {
-        Pageable pageable = PageRequest.of(0, 100);
-        Page<Notification> unreadNotifications;
-
-        do {
-            unreadNotifications = notificationRepository
-                    .findByUserIdOrderByCreatedAtDesc(userId, pageable);
-
-            unreadNotifications.getContent().stream()
-                    .filter(n -> !n.isRead())
-                    .forEach(n -> n.setRead(true));
-
-            notificationRepository.saveAll(unreadNotifications.getContent());
-
-        } while (unreadNotifications.hasNext());
+        notificationStateRepository.markAllAsRead(userId, LocalDateTime.now());
+        unreadCounter.invalidate(userId);
     }
 
-    private NotificationDto mapToDto(Notification notification) {
-        UserDto actor = null;
-        if (notification.getActorId() != null) {
-            User actorUser = userRepository.findById(notification.getActorId()).orElse(null);
-            if (actorUser != null) {
-                actor = new UserDto(
-                        actorUser.getId(),
-                        actorUser.getPhone(),
-                        actorUser.getNickname(),
-                        actorUser.getAvatarUrl(),
-                        actorUser.getBio(),
-                        actorUser.getPostsCount(),
-                        actorUser.getFollowersCount(),
-                        actorUser.getFollowingCount()
-                );
+    // Actors, including the recent actors of aggregated notifications, come from the actor cache in one batch
+    List<NotificationDto> toDtos(List<Notification> notifications, LocalDateTime lastReadAt) {
+        Set<UUID> actorIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getActorId() != null) {
+                actorIds.add(notification.getActorId());
+            }
+            if (notification.getRecentActorIds() != null) {
+                actorIds.addAll(Arrays.asList(notification.getRecentActorIds()));
             }
         }
+        Map<UUID, PublicUserDto> actorById = actorIds.isEmpty() ? Map.of() : actorCache.getAll(actorIds);
+
+        return notifications.stream()
+                .map(notification -> mapToDto(notification, actorById, lastReadAt))
+                .collect(Collectors.toList());
+    }
 
+    // A written row as pushed to notification streams; its read state is already resolved
+    NotificationDto toDto(Notification notification) {
+        return toDtos(List.of(notification), null).get(0);
+    }
+
+    private NotificationDto mapToDto(Notification notification, Map<UUID, PublicUserDto> actorById,
+                                     LocalDateTime lastReadAt) {
+        PublicUserDto actor = notification.getActorId() != null ? actorById.get(notification.getActorId()) : null;
         return new NotificationDto(
                 notification.getId(),
                 notification.getType(),
                 actor,
+                notification.getActorCount(),
                 notification.getRelatedId(),
-                notification.getContent(),
-                notification.isRead(),
+                renderContent(notification, actor, actorById),
+                isRead(notification, lastReadAt),
                 notification.getCreatedAt()
         );
     }
+
+    // Read if marked individually or covered by the mark-all-as-read watermark
+    private boolean isRead(Notification notification, LocalDateTime lastReadAt) {
+        if (notification.isRead() || lastReadAt == null) {
+            return notification.isRead();
+        }
+        LocalDateTime lastActivity = notification.getUpdatedAt() != null
+                ? notification.getUpdatedAt()
+                : notification.getCreatedAt();
+        return !lastActivity.isAfter(lastReadAt);
+    }
+
+    // Names the latest actor, and for aggregated rows the recent actors and a count
+    // ("Bob, Alice and 38 others liked your post"). Actors that no longer exist show as "Someone".
+    private String renderContent(Notification notification, PublicUserDto latestActor,
+                                 Map<UUID, PublicUserDto> actorById) {
+        NotificationTemplate template = NotificationTemplate.from(notification.getTemplate());
+        if (template == null) {
+            return notification.getContent();
+        }
+
+        List<String> names = new ArrayList<>();
+        names.add(latestActor != null ? latestActor.nickname() : "Someone");
+        if (notification.getRecentActorIds() != null) {
+            for (UUID recentActorId : notification.getRecentActorIds()) {
+                PublicUserDto recentActor = actorById.get(recentActorId);
+                if (names.size() < 2 && recentActor != null && !recentActorId.equals(notification.getActorId())) {
+                    names.add(recentActor.nickname());
+                }
+            }
+        }
+
+        int actorCount = notification.getActorCount() != null ? notification.getActorCount() : 1;
+        int others = actorCount - names.size();
+        String actors = others <= 0
+                ? String.join(" and ", names)
+                : String.join(", ", names) + " and " + others + (others == 1 ? " other" : " others");
+        return template.render(actors);
+    }
+
+    private LocalDateTime listedSince() {
+        return LocalDateTime.now().minus(properties.getRetention().getListWindow());
+    }
+
+    // Events only fold into a row created within the aggregation window before them
+    private LocalDateTime createdSince(LocalDateTime updatedSince) {
+        return updatedSince.minus(properties.getAggregation().getWindow());
+    }
 }
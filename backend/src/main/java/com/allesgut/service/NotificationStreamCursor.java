@@ -0,0 +1,27 @@
+package com.allesgut.service;
+
+import com.allesgut.entity.Notification;
+
+// SSE event id: the write sequence of the notification sent. A client reconnecting with it as Last-Event-ID
+// is sent every notification written or folded into after it.
+record NotificationStreamCursor(long writeSeq) {
+
+    static NotificationStreamCursor from(Notification notification) {
+        return new NotificationStreamCursor(notification.getWriteSeq());
+    }
+
+    static NotificationStreamCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new NotificationStreamCursor(Long.parseLong(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Last-Event-ID");
+        }
+    }
+
+    String encode() {
+        return Long.toString(writeSeq);
+    }
+}
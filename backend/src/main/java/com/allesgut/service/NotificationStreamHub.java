@@ -0,0 +1,235 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.dto.response.NotificationDto;
+import com.allesgut.entity.Notification;
+import com.allesgut.exception.TooManyConnectionsException;
+import com.allesgut.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes new notifications to the open server-sent event streams of their recipients on this node.
+// Streams are async requests, so an open stream holds no servlet thread; sends run on a small dispatch
+// pool so a slow client never blocks the thread that published the notification.
+@Slf4j
+@Component
+public class NotificationStreamHub implements SmartLifecycle {
+
+    static final String NOTIFICATION_EVENT = "notification";
+    // Sent when more notifications were missed than are replayed; the client reloads its list instead
+    static final String RESYNC_EVENT = "resync";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final long timeoutMillis;
+    private final int replayLimit;
+    private final ThreadPoolExecutor dispatcher;
+    private final Map<UUID, Deque<Subscription>> subscriptions = new HashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private volatile boolean running;
+
+    public NotificationStreamHub(NotificationRepository notificationRepository,
+                                 NotificationService notificationService, NotificationProperties properties) {
+        NotificationProperties.Stream stream = properties.getStream();
+        this.notificationRepository = notificationRepository;
+        this.notificationService = notificationService;
+        this.maxConnections = stream.getMaxConnections();
+        this.maxConnectionsPerUser = stream.getMaxConnectionsPerUser();
+        this.timeoutMillis = stream.getTimeout().toMillis();
+        this.replayLimit = stream.getReplayLimit();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(stream.getDispatchThreads(), stream.getDispatchThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(stream.getDispatchQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Opens a stream for the user, first replaying what was missed after lastEventId if given
+    public SseEmitter subscribe(UUID userId, String lastEventId) {
+        NotificationStreamCursor resumeAfter = NotificationStreamCursor.decode(lastEventId);
+        if (!running) {
+            throw new TooManyConnectionsException("Notification streams are not available");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManyConnectionsException("Too many open notification streams");
+        }
+
+        Subscription subscription = new Subscription(userId, new SseEmitter(timeoutMillis));
+        subscription.emitter().onCompletion(() -> remove(subscription));
+        // Completing on timeout ends the response normally; the client reconnects with Last-Event-ID
+        subscription.emitter().onTimeout(subscription.emitter()::complete);
+        subscription.emitter().onError(error -> remove(subscription));
+
+        Subscription evicted = null;
+        synchronized (subscriptions) {
+            Deque<Subscription> userSubscriptions = subscriptions.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            userSubscriptions.addLast(subscription);
+            if (userSubscriptions.size() > maxConnectionsPerUser) {
+                evicted = userSubscriptions.peekFirst();
+            }
+        }
+        if (evicted != null) {
+            remove(evicted);
+            evicted.emitter().complete();
+        }
+
+        // Registered before replaying, so nothing published meanwhile is lost; it may be sent twice
+        if (resumeAfter != null) {
+            replay(subscription, resumeAfter);
+        }
+        return subscription.emitter();
+    }
+
+    public void publish(Notification notification) {
+        if (!running) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                List<Subscription> recipients = subscriptionsOf(notification.getUserId());
+                if (recipients.isEmpty()) {
+                    return;
+                }
+                NotificationStreamCursor cursor = NotificationStreamCursor.from(notification);
+                NotificationDto dto = notificationService.toDto(notification);
+                for (Subscription subscription : recipients) {
+                    send(subscription, notificationEvent(cursor, dto));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Not lost: the client sees it on its next list load or resume
+            log.debug("Notification stream dispatch is saturated, dropping notification {}", notification.getId());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat-interval:PT25S}")
+    public void heartbeat() {
+        if (!running || connections.get() == 0) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                for (Subscription subscription : allSubscriptions()) {
+                    send(subscription, SseEmitter.event().comment("heartbeat"));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Notification stream dispatch is saturated, skipping heartbeat");
+        }
+    }
+
+    int connectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // Closes all streams so graceful shutdown does not wait for them; clients reconnect to another node
+    @Override
+    public void stop() {
+        running = false;
+        for (Subscription subscription : allSubscriptions()) {
+            remove(subscription);
+            subscription.emitter().complete();
+        }
+        dispatcher.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the web server's graceful shutdown, which waits for open requests
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 512;
+    }
+
+    private void replay(Subscription subscription, NotificationStreamCursor resumeAfter) {
+        List<Notification> missed = notificationRepository.findWrittenAfter(
+                subscription.userId(), resumeAfter.writeSeq(), replayLimit);
+        List<NotificationDto> dtos = notificationService.toDtos(missed, null);
+        for (int i = 0; i < missed.size(); i++) {
+            Notification notification = missed.get(i);
+            send(subscription, notificationEvent(NotificationStreamCursor.from(notification), dtos.get(i)));
+        }
+        if (missed.size() >= replayLimit) {
+            send(subscription, SseEmitter.event().name(RESYNC_EVENT).data(""));
+        }
+    }
+
+    private SseEmitter.SseEventBuilder notificationEvent(NotificationStreamCursor cursor, NotificationDto notification) {
+        return SseEmitter.event()
+                .id(cursor.encode())
+                .name(NOTIFICATION_EVENT)
+                .data(notification);
+    }
+
+    private void send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream was already completed
+            remove(subscription);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        boolean removed;
+        synchronized (subscriptions) {
+            Deque<Subscription> userSubscriptions = subscriptions.get(subscription.userId());
+            removed = userSubscriptions != null && userSubscriptions.remove(subscription);
+            if (userSubscriptions != null && userSubscriptions.isEmpty()) {
+                subscriptions.remove(subscription.userId());
+            }
+        }
+        if (removed) {
+            connections.decrementAndGet();
+        }
+    }
+
+    private List<Subscription> subscriptionsOf(UUID userId) {
+        synchronized (subscriptions) {
+            Deque<Subscription> userSubscriptions = subscriptions.get(userId);
+            return userSubscriptions != null ? new ArrayList<>(userSubscriptions) : List.of();
+        }
+    }
+
+    private List<Subscription> allSubscriptions() {
+        synchronized (subscriptions) {
+            List<Subscription> all = new ArrayList<>(connections.get());
+            subscriptions.values().forEach(all::addAll);
+            return all;
+        }
+    }
+
+    private record Subscription(UUID userId, SseEmitter emitter) {}
+}
@@ -0,0 +1,40 @@
+package com.allesgut.service;
+
+// Notification texts. Rows store only the template name and are rendered when read, so they always
+// show the actors' current nicknames.
+public enum NotificationTemplate {
+    POST_COMMENT("comment", "commented on your post"),
+    COMMENT_REPLY("comment", "replied to your comment"),
+    COMMENT_MENTION("mention", "mentioned you in a comment"),
+    POST_LIKE("like", "liked your post"),
+    COMMENT_LIKE("like", "liked your comment"),
+    FOLLOW("follow", "started following you");
+
+    private final String type;
+    private final String action;
+
+    NotificationTemplate(String type, String action) {
+        this.type = type;
+        this.action = action;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    // Null for rows without a template, which keep their stored content
+    static NotificationTemplate from(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    String render(String actors) {
+        return actors + " " + action;
+    }
+}
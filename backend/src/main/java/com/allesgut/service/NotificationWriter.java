@@ -0,0 +1,507 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.entity.Notification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Writes notifications off the request path. Events are received after the publishing transaction
+// commits, deduplicated, journaled to the outbox, queued in memory and written by a single background
+// thread. Events of aggregated types are folded into the open row of their (recipient, type, related id)
+// group with one UPDATE per batchSize groups; everything else goes out as multi-row INSERTs.
+// Written rows are pushed to this node's open streams once committed and relayed to other nodes on commit.
+@Slf4j
+@Component
+public class NotificationWriter implements SmartLifecycle {
+
+    // Unread if not marked read and not covered by the mark-all-as-read watermark
+    private static final String UNREAD = "(%1$s.is_read = false and %1$s.updated_at > coalesce(" +
+            "(select s.last_read_at from notification_states s where s.user_id = %1$s.user_id), '-infinity'))";
+
+    private static final String INSERT_PREFIX = "insert into notifications as n " +
+            "(id, user_id, type, actor_id, related_id, template, content, is_read, created_at, updated_at, " +
+            "actor_count, recent_actor_ids) values ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, cast(? as uuid[]))";
+    // Replayed outbox entries may already have been written before a crash. A row written late may
+    // already be covered by the watermark.
+    private static final String INSERT_SUFFIX = " on conflict do nothing returning n.*, " +
+            UNREAD.formatted("n") + " as unread";
+
+    // Folds each group into the newest row of the same group created within the window that is in the
+    // given unread state. recent_actor_ids keeps the three most recent distinct actors, latest first.
+    // actor_count grows by the group's actors not already among the row's recent actors; an actor that
+    // dropped out of those three is counted again.
+    private static final String AGGREGATE_PREFIX = "with v (ord, actor_ids, actor_id, template, content, " +
+            "recent_actor_ids, updated_at, user_id, type, related_id, since) as (values ";
+    private static final String AGGREGATE_ROW = "(?, cast(? as uuid[]), cast(? as uuid), ?, ?, " +
+            "cast(? as uuid[]), cast(? as timestamp), cast(? as uuid), ?, cast(? as uuid), cast(? as timestamp))";
+    private static final String AGGREGATE_TARGET = "), t as (select v.*, (select g.id from notifications g " +
+            "where g.user_id = v.user_id and g.type = v.type and g.created_at >= v.since and ";
+    private static final String AGGREGATE_RELATED = "g.related_id = v.related_id";
+    private static final String AGGREGATE_UNRELATED = "g.related_id is null";
+    private static final String AGGREGATE_SUFFIX = " and " + UNREAD.formatted("g") + " = ? " +
+            "order by g.created_at desc limit 1) as target_id from v) " +
+            "update notifications n set " +
+            "actor_count = n.actor_count + (select count(*) from unnest(t.actor_ids) a(actor_id) " +
+            "    where a.actor_id <> all(coalesce(n.recent_actor_ids, array_remove(array[n.actor_id], null)))), " +
+            "actor_id = t.actor_id, template = t.template, content = t.content, " +
+            "recent_actor_ids = (select array_agg(r.actor_id order by r.ord) from (" +
+            "    select a.actor_id, min(a.ord) as ord " +
+            "    from unnest(t.recent_actor_ids || n.recent_actor_ids) with ordinality as a(actor_id, ord) " +
+            "    group by a.actor_id order by min(a.ord) limit " + NotificationGroup.RECENT_ACTORS + ") r), " +
+            "is_read = false, updated_at = greatest(n.updated_at, t.updated_at), " +
+            "write_seq = nextval('notification_write_seq') " +
+            "from t where n.id = t.target_id " +
+            "returning t.ord, n.*, " + UNREAD.formatted("n") + " as unread";
+
+    // Taken in user id order before any row is written, so a recipient's write_seq values commit in order
+    private static final String LOCK_RECIPIENTS = "select count(pg_advisory_xact_lock(" +
+            "hashtextextended(u.id::text, 0))) from (select id from unnest(cast(? as uuid[])) with ordinality as r(id, ord) order by ord) u";
+
+    private static final String ADD_UNREAD = "insert into notification_states (user_id, unread_count) " +
+            "values (?, ?) on conflict (user_id) do update set " +
+            "unread_count = notification_states.unread_count + excluded.unread_count, updated_at = now()";
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationOutbox outbox;
+    private final UnreadNotificationCounter unreadCounter;
+    private final NotificationStreamHub streamHub;
+    private final NotificationBroadcaster broadcaster;
+    private final int batchSize;
+    private final Set<String> aggregatedTypes;
+    private final Duration aggregationWindow;
+    private final NotificationDeduplicator deduplicator;
+    private final BlockingQueue<NotificationOutbox.Entry> queue;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              NotificationOutbox outbox, UnreadNotificationCounter unreadCounter,
+                              NotificationStreamHub streamHub, NotificationBroadcaster broadcaster,
+                              NotificationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Inline writes run from the publisher's afterCommit callback, where its transaction is still bound
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.outbox = outbox;
+        this.unreadCounter = unreadCounter;
+        this.streamHub = streamHub;
+        this.broadcaster = broadcaster;
+        this.batchSize = properties.getWriter().getBatchSize();
+        this.aggregatedTypes = Set.copyOf(properties.getAggregation().getTypes());
+        this.aggregationWindow = properties.getAggregation().getWindow();
+        this.deduplicator = new NotificationDeduplicator(
+                properties.getAggregation().getDedupWindow(), properties.getAggregation().getDedupCapacity());
+        this.queue = new ArrayBlockingQueue<>(properties.getWriter().getQueueCapacity());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        if (!deduplicator.accept(event)) {
+            return;
+        }
+        long segment;
+        try {
+            segment = outbox.append(event);
+        } catch (RuntimeException e) {
+            log.warn("Failed to journal notification {}, writing it without outbox", event.id(), e);
+            segment = NotificationOutbox.NO_SEGMENT;
+        }
+
+        if (!running) {
+            // Left in the outbox and replayed on the next start
+            return;
+        }
+
+        NotificationOutbox.Entry entry = new NotificationOutbox.Entry(event, segment);
+        if (!queue.offer(entry)) {
+            // Writer is behind; write inline rather than dropping or blocking on the queue
+            try {
+                write(List.of(entry));
+            } catch (DataAccessException e) {
+                log.warn("Failed to write notification {} inline, leaving it in the outbox", event.id(), e);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        List<NotificationOutbox.Entry> recovered = outbox.open();
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} notifications from the outbox", recovered.size());
+            try {
+                for (int from = 0; from < recovered.size(); from += batchSize) {
+                    writeOrKeep(recovered.subList(from, Math.min(from + batchSize, recovered.size())));
+                }
+            } catch (DataAccessException e) {
+                log.warn("Failed to replay the notification outbox, keeping it for the next start", e);
+            }
+        }
+
+        running = true;
+        worker = new Thread(this::drain, "notification-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        outbox.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server so requests still in flight can hand off their notifications
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private void drain() {
+        List<NotificationOutbox.Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                NotificationOutbox.Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                outbox.sync();
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Any failure is retried: the batch stays in memory until it is written or the writer stops
+    private void writeWithRetry(List<NotificationOutbox.Entry> batch) throws InterruptedException {
+        long backoffMillis = 100;
+        while (true) {
+            try {
+                writeOrKeep(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.warn("Failed to write {} notifications during shutdown, leaving them in the outbox",
+                            batch.size(), e);
+                    return;
+                }
+                log.warn("Failed to write {} notifications, retrying in {} ms", batch.size(), backoffMillis, e);
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    // A constraint violation (e.g. the recipient was deleted meanwhile) only discards the offending rows
+    private void writeOrKeep(List<NotificationOutbox.Entry> batch) {
+        try {
+            write(batch);
+        } catch (DataIntegrityViolationException e) {
+            for (NotificationOutbox.Entry entry : batch) {
+                try {
+                    write(List.of(entry));
+                } catch (DataIntegrityViolationException rowException) {
+                    log.warn("Discarding notification {}: {}", entry.event().id(), rowException.getMessage());
+                    acknowledge(List.of(entry));
+                }
+            }
+        }
+    }
+
+    void write(List<NotificationOutbox.Entry> batch) {
+        List<NotificationGroup> groups = group(batch);
+
+        // All statements commit together, so a retried batch is never folded in or counted twice
+        List<Notification> written = transactionTemplate.execute(status -> {
+            List<NotificationGroup> inserts = new ArrayList<>();
+            List<NotificationGroup> related = new ArrayList<>();
+            List<NotificationGroup> unrelated = new ArrayList<>();
+            for (NotificationGroup group : groups) {
+                if (!group.aggregated()) {
+                    inserts.add(group);
+                } else if (group.latest().relatedId() != null) {
+                    related.add(group);
+                } else {
+                    unrelated.add(group);
+                }
+            }
+
+            lockRecipients(groups);
+            List<Notification> rows = new ArrayList<>();
+            Map<UUID, Integer> unreadDeltas = new TreeMap<>();
+            inserts.addAll(fold(AGGREGATE_RELATED, related, rows, unreadDeltas));
+            inserts.addAll(fold(AGGREGATE_UNRELATED, unrelated, rows, unreadDeltas));
+            for (Notification inserted : insert(inserts)) {
+                rows.add(inserted);
+                if (!inserted.isRead()) {
+                    unreadDeltas.merge(inserted.getUserId(), 1, Integer::sum);
+                }
+            }
+
+            addUnread(unreadDeltas);
+            broadcaster.broadcast(rows);
+            return rows;
+        });
+        acknowledge(batch);
+        // Streams get the rows as stored, so their ids resolve when the client marks them as read
+        written.forEach(streamHub::publish);
+    }
+
+    private List<NotificationGroup> group(List<NotificationOutbox.Entry> batch) {
+        List<NotificationGroup> groups = new ArrayList<>();
+        Map<List<Object>, NotificationGroup> openGroups = new HashMap<>();
+        for (NotificationOutbox.Entry entry : batch) {
+            NotificationEvent event = entry.event();
+            if (!aggregatedTypes.contains(event.type())) {
+                groups.add(new NotificationGroup(event, false));
+                continue;
+            }
+            List<Object> key = Arrays.asList(event.userId(), event.type(), event.relatedId());
+            NotificationGroup group = openGroups.get(key);
+            if (group == null) {
+                group = new NotificationGroup(event, true);
+                openGroups.put(key, group);
+                groups.add(group);
+            } else {
+                group.add(event);
+            }
+        }
+        return groups;
+    }
+
+    // Folding into an unread row leaves the unread count as is; reopening a read row adds one, unless
+    // the row is still covered by the watermark. Adds the updated rows to rows and returns the groups
+    // that found no open row at all.
+    private List<NotificationGroup> fold(String target, List<NotificationGroup> groups, List<Notification> rows,
+                                         Map<UUID, Integer> unreadDeltas) {
+        Map<NotificationGroup, Notification> folded = aggregate(target, groups, false);
+        List<NotificationGroup> withoutUnreadRow = groups.stream().filter(group -> !folded.containsKey(group)).toList();
+        Map<NotificationGroup, Notification> reopened = aggregate(target, withoutUnreadRow, true);
+        reopened.values().forEach(row -> {
+            if (!row.isRead()) {
+                unreadDeltas.merge(row.getUserId(), 1, Integer::sum);
+            }
+        });
+        rows.addAll(folded.values());
+        rows.addAll(reopened.values());
+        return withoutUnreadRow.stream().filter(group -> !reopened.containsKey(group)).toList();
+    }
+
+    // Returns the row each folded group went into, as updated
+    private Map<NotificationGroup, Notification> aggregate(String target, List<NotificationGroup> groups,
+                                                           boolean read) {
+        Map<NotificationGroup, Notification> folded = new HashMap<>();
+        for (int from = 0; from < groups.size(); from += batchSize) {
+            List<NotificationGroup> chunk = groups.subList(from, Math.min(from + batchSize, groups.size()));
+            StringBuilder sql = new StringBuilder(AGGREGATE_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 11 + 1);
+            for (int i = 0; i < chunk.size(); i++) {
+                NotificationGroup group = chunk.get(i);
+                NotificationEvent latest = group.latest();
+                sql.append(i == 0 ? "" : ", ").append(AGGREGATE_ROW);
+                args.add(i);
+                args.add(group.actorIdsLiteral());
+                args.add(latest.actorId());
+                args.add(latest.template());
+                args.add(latest.content());
+                args.add(group.recentActorIdsLiteral());
+                args.add(Timestamp.valueOf(latest.createdAt()));
+                args.add(latest.userId());
+                args.add(latest.type());
+                args.add(latest.relatedId());
+                args.add(Timestamp.valueOf(latest.createdAt().minus(aggregationWindow)));
+            }
+            sql.append(AGGREGATE_TARGET).append(target).append(AGGREGATE_SUFFIX);
+            args.add(!read);
+            jdbcTemplate.query(sql.toString(), rs -> {
+                folded.put(chunk.get(rs.getInt("ord")), mapRow(rs));
+            }, args.toArray());
+        }
+        return folded;
+    }
+
+    // Returns the rows actually inserted
+    private List<Notification> insert(List<NotificationGroup> groups) {
+        List<Notification> inserted = new ArrayList<>();
+        for (int from = 0; from < groups.size(); from += batchSize) {
+            List<NotificationGroup> chunk = groups.subList(from, Math.min(from + batchSize, groups.size()));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 11);
+            for (int i = 0; i < chunk.size(); i++) {
+                NotificationGroup group = chunk.get(i);
+                NotificationEvent first = group.first();
+                NotificationEvent latest = group.latest();
+                sql.append(i == 0 ? "" : ", ").append(INSERT_ROW);
+                args.add(first.id());
+                args.add(latest.userId());
+                args.add(latest.type());
+                args.add(latest.actorId());
+                args.add(latest.relatedId());
+                args.add(latest.template());
+                args.add(latest.content());
+                args.add(Timestamp.valueOf(first.createdAt()));
+                args.add(Timestamp.valueOf(latest.createdAt()));
+                args.add(group.actorCount());
+                args.add(group.recentActorIdsLiteral());
+            }
+            sql.append(INSERT_SUFFIX);
+            inserted.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapRow(rs), args.toArray()));
+        }
+        return inserted;
+    }
+
+    // Read as the recipient sees it, so a row covered by the watermark reads as read
+    private static Notification mapRow(ResultSet rs) throws SQLException {
+        Array recentActorIds = rs.getArray("recent_actor_ids");
+        return Notification.builder()
+                .id(rs.getObject("id", UUID.class))
+                .userId(rs.getObject("user_id", UUID.class))
+                .type(rs.getString("type"))
+                .actorId(rs.getObject("actor_id", UUID.class))
+                .relatedId(rs.getObject("related_id", UUID.class))
+                .template(rs.getString("template"))
+                .content(rs.getString("content"))
+                .actorCount(rs.getInt("actor_count"))
+                .recentActorIds(recentActorIds != null ? (UUID[]) recentActorIds.getArray() : null)
+                .isRead(!rs.getBoolean("unread"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .writeSeq(rs.getLong("write_seq"))
+                .build();
+    }
+
+    private void lockRecipients(List<NotificationGroup> groups) {
+        Set<UUID> recipients = new TreeSet<>();
+        groups.forEach(group -> recipients.add(group.latest().userId()));
+        jdbcTemplate.queryForObject(LOCK_RECIPIENTS, Long.class, literal(recipients));
+    }
+
+    // Sorted by user id so concurrent writers lock notification_states rows in the same order
+    private void addUnread(Map<UUID, Integer> unreadDeltas) {
+        if (unreadDeltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(unreadDeltas.size());
+        unreadDeltas.forEach((userId, delta) -> args.add(new Object[]{userId, delta}));
+        jdbcTemplate.batchUpdate(ADD_UNREAD, args);
+        unreadDeltas.keySet().forEach(unreadCounter::invalidate);
+    }
+
+    private void acknowledge(List<NotificationOutbox.Entry> batch) {
+        Map<Long, Integer> countBySegment = new HashMap<>();
+        batch.forEach(entry -> countBySegment.merge(entry.segment(), 1, Integer::sum));
+        countBySegment.forEach(outbox::acknowledge);
+    }
+
+    // Events of one (recipient, type, related id) group within a batch; non-aggregated events stand alone
+    private static final class NotificationGroup {
+        static final int RECENT_ACTORS = 3;
+
+        private final NotificationEvent first;
+        private final boolean aggregated;
+        private final LinkedList<UUID> recentActorIds = new LinkedList<>();
+        private final Set<UUID> actorIds = new LinkedHashSet<>();
+        private NotificationEvent latest;
+
+        NotificationGroup(NotificationEvent event, boolean aggregated) {
+            this.first = event;
+            this.aggregated = aggregated;
+            add(event);
+        }
+
+        void add(NotificationEvent event) {
+            latest = event;
+            if (event.actorId() != null) {
+                actorIds.add(event.actorId());
+                recentActorIds.remove(event.actorId());
+                recentActorIds.addFirst(event.actorId());
+                if (recentActorIds.size() > RECENT_ACTORS) {
+                    recentActorIds.removeLast();
+                }
+            }
+        }
+
+        NotificationEvent first() {
+            return first;
+        }
+
+        NotificationEvent latest() {
+            return latest;
+        }
+
+        boolean aggregated() {
+            return aggregated;
+        }
+
+        // Distinct actors; repeated events of one actor count once
+        int actorCount() {
+            return Math.max(1, actorIds.size());
+        }
+
+        String actorIdsLiteral() {
+            return literal(actorIds);
+        }
+
+        String recentActorIdsLiteral() {
+            return literal(recentActorIds);
+        }
+    }
+
+    // Postgres array literal, bound as text and cast to uuid[] in SQL
+    private static String literal(Collection<UUID> ids) {
+        return ids.stream().map(UUID::toString).collect(Collectors.joining(",", "{", "}"));
+    }
+}
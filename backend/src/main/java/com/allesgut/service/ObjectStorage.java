@@ -0,0 +1,49 @@
+package com.allesgut.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// Where uploaded media is kept. Keys are paths such as images/<user id>/<file name> or media/<sha256>.
+public interface ObjectStorage {
+
+    // Streams exactly length bytes of in to the key
+    void put(String key, InputStream in, long length, String contentType) throws IOException;
+
+    // URL a client can PUT the object to until expiresAt, sending the given Content-Type
+    String presignPut(String key, String contentType, long maxSize, Instant expiresAt);
+
+    Optional<StoredObject> stat(String key);
+
+    // The whole object; the caller closes the stream
+    InputStream open(String key) throws IOException;
+
+    // Up to length bytes from the start of the object
+    byte[] readHead(String key, int length) throws IOException;
+
+    void delete(String key);
+
+    // Moves an object to a key that must not exist yet
+    void move(String fromKey, String toKey) throws IOException;
+
+    // Deletes objects under the prefix once they are older than maxAge. The store may do so on its own
+    // schedule and in coarser steps; callers repeat the call so a changed maxAge takes effect.
+    void expire(String prefix, Duration maxAge) throws IOException;
+
+    // Multipart upload: parts may arrive in any order and in parallel, and a part sent again replaces
+    // the earlier one. Returns the store's id of the upload.
+    String initiateMultipart(String key, String contentType);
+
+    // Returns the part's ETag, needed to complete the upload
+    String uploadPart(String key, String uploadId, int partNumber, InputStream in, long length) throws IOException;
+
+    // Assembles the parts, in part number order, into the object
+    void completeMultipart(String key, String uploadId, List<CompletedPart> parts) throws IOException;
+
+    void abortMultipart(String key, String uploadId);
+
+    String publicUrl(String key);
+}
@@ -0,0 +1,189 @@
+package com.allesgut.service;
+
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.LifecycleRule;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.SetBucketLifecycleRequest;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.allesgut.config.AliyunOssProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "oss", matchIfMissing = true)
+public class OssObjectStorage implements ObjectStorage {
+
+    private final OSS ossClient;
+    private final AliyunOssProperties ossProperties;
+
+    public OssObjectStorage(@Autowired(required = false) OSS ossClient, AliyunOssProperties ossProperties) {
+        this.ossClient = ossClient;
+        this.ossProperties = ossProperties;
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length, String contentType) {
+        OSS client = client();
+        try {
+            // With the length known the client sends the stream as it reads it instead of buffering it
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(length);
+            metadata.setContentType(contentType);
+            client.putObject(new PutObjectRequest(ossProperties.getBucketName(), key, in, metadata));
+            log.info("Uploaded file to OSS: {}", key);
+        } catch (Exception e) {
+            log.error("Failed to upload file to OSS", e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    // The signature covers the content type but OSS cannot bind a PUT to a size; completion checks it
+    @Override
+    public String presignPut(String key, String contentType, long maxSize, Instant expiresAt) {
+        GeneratePresignedUrlRequest request =
+                new GeneratePresignedUrlRequest(ossProperties.getBucketName(), key, HttpMethod.PUT);
+        request.setExpiration(Date.from(expiresAt));
+        request.setContentType(contentType);
+        return client().generatePresignedUrl(request).toString();
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) {
+        OSS client = client();
+        if (!client.doesObjectExist(ossProperties.getBucketName(), key)) {
+            return Optional.empty();
+        }
+        ObjectMetadata metadata = client.getObjectMetadata(ossProperties.getBucketName(), key);
+        return Optional.of(new StoredObject(metadata.getContentLength(), metadata.getContentType()));
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return client().getObject(ossProperties.getBucketName(), key).getObjectContent();
+    }
+
+    @Override
+    public byte[] readHead(String key, int length) throws IOException {
+        GetObjectRequest request = new GetObjectRequest(ossProperties.getBucketName(), key);
+        request.setRange(0, length - 1);
+        try (OSSObject object = client().getObject(request)) {
+            return object.getObjectContent().readNBytes(length);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        client().deleteObject(ossProperties.getBucketName(), key);
+    }
+
+    // OSS has no rename: a server-side copy that refuses to overwrite, then a delete
+    @Override
+    public void move(String fromKey, String toKey) {
+        OSS client = client();
+        CopyObjectRequest request = new CopyObjectRequest(ossProperties.getBucketName(), fromKey,
+                ossProperties.getBucketName(), toKey);
+        request.addHeader("x-oss-forbid-overwrite", "true");
+        client.copyObject(request);
+        client.deleteObject(ossProperties.getBucketName(), fromKey);
+    }
+
+    // Left to a bucket lifecycle rule on the prefix, which OSS applies in whole days. The bucket's other
+    // rules are kept; the rule is only written when missing or changed.
+    @Override
+    public void expire(String prefix, Duration maxAge) {
+        OSS client = client();
+        String bucket = ossProperties.getBucketName();
+        String ruleId = "expire-" + prefix.replaceAll("[^A-Za-z0-9]", "");
+        int days = (int) Math.max(1, (maxAge.toHours() + 23) / 24);
+
+        List<LifecycleRule> rules = new ArrayList<>();
+        try {
+            rules.addAll(client.getBucketLifecycle(bucket));
+        } catch (OSSException e) {
+            if (!OSSErrorCode.NO_SUCH_LIFECYCLE.equals(e.getErrorCode())) {
+                throw e;
+            }
+        }
+        boolean current = rules.stream().anyMatch(rule -> ruleId.equals(rule.getId())
+                && prefix.equals(rule.getPrefix())
+                && rule.getStatus() == LifecycleRule.RuleStatus.Enabled
+                && rule.hasExpirationDays() && rule.getExpirationDays() == days);
+        if (current) {
+            return;
+        }
+
+        rules.removeIf(rule -> ruleId.equals(rule.getId()));
+        rules.add(new LifecycleRule(ruleId, prefix, LifecycleRule.RuleStatus.Enabled, days));
+        SetBucketLifecycleRequest request = new SetBucketLifecycleRequest(bucket);
+        request.setLifecycleRules(rules);
+        client.setBucketLifecycle(request);
+        log.info("Set OSS lifecycle rule {}: objects under {} expire after {} days", ruleId, prefix, days);
+    }
+
+    @Override
+    public String initiateMultipart(String key, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        InitiateMultipartUploadRequest request =
+                new InitiateMultipartUploadRequest(ossProperties.getBucketName(), key, metadata);
+        return client().initiateMultipartUpload(request).getUploadId();
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream in, long length) {
+        UploadPartRequest request = new UploadPartRequest(ossProperties.getBucketName(), key, uploadId,
+                partNumber, in, length);
+        return client().uploadPart(request).getPartETag().getETag();
+    }
+
+    @Override
+    public void completeMultipart(String key, String uploadId, List<CompletedPart> parts) {
+        List<PartETag> partETags = parts.stream()
+                .map(part -> new PartETag(part.partNumber(), part.etag()))
+                .toList();
+        client().completeMultipartUpload(new CompleteMultipartUploadRequest(
+                ossProperties.getBucketName(), key, uploadId, new ArrayList<>(partETags)));
+    }
+
+    @Override
+    public void abortMultipart(String key, String uploadId) {
+        client().abortMultipartUpload(new AbortMultipartUploadRequest(ossProperties.getBucketName(), key, uploadId));
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return "https://" + ossProperties.getBucketName() + "." +
+                ossProperties.getEndpoint().replace("https://", "") + "/" + key;
+    }
+
+    private OSS client() {
+        if (ossClient == null) {
+            throw new IllegalStateException("OSS client is not configured. Please set ALIYUN_ACCESS_KEY_ID and ALIYUN_ACCESS_KEY_SECRET environment variables.");
+        }
+        return ossClient;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @Service
@@ -35,6 +36,7 @@ public class PostService {
     private final PostLikeRepository postLikeRepository;
     private final PostFavoriteRepository postFavoriteRepository;
     private final NotificationService notificationService;
+    private final ImageDerivativeRepository imageDerivativeRepository;
 
     @Transactional
     public PostDto createPost(UUID userId, CreatePostRequest request) {
@@ -87,7 +89,7 @@ public class PostService {
         userRepository.save(user);
 
         // Return DTO
-        return mapToDto(post, user, tagNames, false, false);
+        return mapToDto(post, user, tagNames, false, false, thumbnailsOf(List.of(post)));
     }
 
     public PageResponse<PostPublicDto> getFeed(String feedType, UUID currentUserId,
@@ -154,6 +156,8 @@ public class PostService {
                     .forEach(follow -> followedAuthorIds.add(follow.getFollowingId()));
         }
 
+        Map<String, Map<Integer, String>> thumbnails = thumbnailsOf(posts);
+
         // Convert to DTOs
         List<PostPublicDto> postDtos = posts.stream()
                 .map(post -> {
@@ -166,7 +170,7 @@ public class PostService {
                     boolean isFavorited = currentUserId != null && favoritedPostIds.contains(post.getId());
                     boolean isAuthorFollowed = currentUserId != null && author != null && followedAuthorIds.contains(author.getId());
                     List<String> tags = tagsByPostId.getOrDefault(post.getId(), List.of());
-                    return mapToPublicDto(post, author, tags, isLiked, isFavorited, isAuthorFollowed);
+                    return mapToPublicDto(post, author, tags, isLiked, isFavorited, isAuthorFollowed, thumbnails);
                 })
                 .toList();
 
@@ -180,6 +184,7 @@ public class PostService {
         User author = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
+        Map<String, Map<Integer, String>> thumbnails = thumbnailsOf(postsPage.getContent());
         List<PostDto> postDtos = postsPage.getContent().stream()
                 .map(post -> {
                     boolean isLiked = currentUserId != null &&
@@ -187,7 +192,7 @@ public class PostService {
                     boolean isFavorited = currentUserId != null &&
                             postFavoriteRepository.existsByUserIdAndPostId(currentUserId, post.getId());
 
-                    return mapToDto(post, author, List.of(), isLiked, isFavorited);
+                    return mapToDto(post, author, List.of(), isLiked, isFavorited, thumbnails);
                 })
                 .toList();
 
@@ -211,7 +216,8 @@ public class PostService {
         boolean isAuthorFollowed = currentUserId != null &&
                 userFollowRepository.existsByFollowerIdAndFollowingId(currentUserId, author.getId());
 
-        return mapToPublicDto(post, author, tags, isLiked, isFavorited, isAuthorFollowed);
+        return mapToPublicDto(post, author, tags, isLiked, isFavorited, isAuthorFollowed,
+                thumbnailsOf(List.of(post)));
     }
 
     @Transactional
@@ -238,16 +244,12 @@ public class PostService {
 
         // Create notification if not liking own post
         if (!post.getUserId().equals(userId)) {
-            User liker = userRepository.findById(userId).orElse(null);
-            if (liker != null) {
-                notificationService.createNotification(
-                        post.getUserId(),
-                        "like",
-                        userId,
-                        postId,
-                        liker.getNickname() + " liked your post"
-                );
-            }
+            notificationService.createNotification(
+                    post.getUserId(),
+                    NotificationTemplate.POST_LIKE,
+                    userId,
+                    postId
+            );
         }
     }
 
@@ -304,8 +306,49 @@ public class PostService {
         postRepository.save(post);
     }
 
+    // Derivatives of the cover and media images of the posts, by original URL and width
+    private Map<String, Map<Integer, String>> thumbnailsOf(List<Post> posts) {
+        Set<String> urls = new HashSet<>();
+        for (Post post : posts) {
+            urls.addAll(imageUrls(post));
+        }
+        if (urls.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Map<Integer, String>> thumbnails = new HashMap<>();
+        for (ImageDerivative derivative : imageDerivativeRepository.findBySourceUrlIn(urls)) {
+            thumbnails.computeIfAbsent(derivative.getSourceUrl(), k -> new TreeMap<>())
+                    .put(derivative.getWidth(), derivative.getUrl());
+        }
+        return thumbnails;
+    }
+
+    private static Map<String, Map<Integer, String>> thumbnailsOf(Post post,
+                                                                  Map<String, Map<Integer, String>> thumbnails) {
+        Map<String, Map<Integer, String>> postThumbnails = new HashMap<>();
+        for (String url : imageUrls(post)) {
+            Map<Integer, String> derivatives = thumbnails.get(url);
+            if (derivatives != null) {
+                postThumbnails.put(url, derivatives);
+            }
+        }
+        return postThumbnails;
+    }
+
+    private static List<String> imageUrls(Post post) {
+        List<String> urls = new ArrayList<>();
+        if (post.getCoverUrl() != null) {
+            urls.add(post.getCoverUrl());
+        }
+        if (post.getMediaUrls() != null) {
+            urls.addAll(post.getMediaUrls());
+        }
+        return urls;
+    }
+
     private PostDto mapToDto(Post post, User author, List<String> tags,
-                             boolean isLiked, boolean isFavorited) {
+                             boolean isLiked, boolean isFavorited, Map<String, Map<Integer, String>> thumbnails) {
         if (author == null) {
             throw new IllegalArgumentException("Author not found");
         }
@@ -329,6 +372,7 @@ public class PostService {
                 post.getMediaType(),
                 post.getMediaUrls(),
                 post.getCoverUrl(),
+                thumbnailsOf(post, thumbnails),
                 tags,
                 post.getLikesCount(),
                 post.getCommentsCount(),
@@ -341,7 +385,8 @@ public class PostService {
     }
 
     private PostPublicDto mapToPublicDto(Post post, User author, List<String> tags,
-                                        boolean isLiked, boolean isFavorited, boolean isAuthorFollowed) {
+                                        boolean isLiked, boolean isFavorited, boolean isAuthorFollowed,
+                                        Map<String, Map<Integer, String>> thumbnails) {
         if (author == null) {
             throw new IllegalArgumentException("Author not found");
         }
@@ -360,6 +405,7 @@ public class PostService {
                 post.getMediaType(),
                 post.getMediaUrls(),
                 post.getCoverUrl(),
+                thumbnailsOf(post, thumbnails),
                 tags,
                 post.getLikesCount(),
                 post.getCommentsCount(),
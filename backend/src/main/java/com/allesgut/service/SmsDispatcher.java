@@ -0,0 +1,178 @@
+package com.allesgut.service;
+
+import com.allesgut.config.SmsProperties;
+import com.allesgut.exception.SmsDeliveryException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends text messages through the configured provider off the request path: a bounded queue drained by
+// a worker pool, a cap on calls in flight to the provider, and retries with backoff. Messages are held
+// in memory only; those still queued at shutdown are lost and the user asks for a new code.
+@Slf4j
+@Component
+public class SmsDispatcher implements SmartLifecycle {
+
+    private final SmsProvider provider;
+    private final Semaphore providerPermits;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter dropped;
+
+    private volatile boolean running;
+
+    public SmsDispatcher(List<SmsProvider> providers, SmsProperties properties, MeterRegistry meterRegistry) {
+        SmsProperties.Dispatch dispatch = properties.getDispatch();
+        this.provider = providers.stream()
+                .filter(candidate -> candidate.name().equals(properties.getProvider()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No SMS provider named " + properties.getProvider()));
+        this.providerPermits = new Semaphore(dispatch.getMaxConcurrency());
+        this.maxAttempts = dispatch.getMaxAttempts();
+        this.initialBackoffMillis = dispatch.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = dispatch.getMaxBackoff().toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(dispatch.getWorkers(), dispatch.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(dispatch.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sms-dispatch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sms-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sent = meterRegistry.counter("sms.dispatch", "outcome", "sent");
+        this.retried = meterRegistry.counter("sms.dispatch", "outcome", "retried");
+        this.failed = meterRegistry.counter("sms.dispatch", "outcome", "failed");
+        this.dropped = meterRegistry.counter("sms.dispatch", "outcome", "dropped");
+        Gauge.builder("sms.dispatch.queue", workers, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    private record Delivery(String phone, String text, int attempt) {
+        Delivery next() {
+            return new Delivery(phone, text, attempt + 1);
+        }
+    }
+
+    // Lets a send request be refused before it does any work
+    public boolean isSaturated() {
+        return !running || workers.getQueue().remainingCapacity() == 0;
+    }
+
+    // Queues the message; inside a transaction only once it commits, so no code is sent that was not saved
+    public void dispatch(String phone, String text) {
+        Delivery delivery = new Delivery(phone, text, 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(delivery);
+                }
+            });
+        } else {
+            submit(delivery);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Dropping {} queued text messages at shutdown", workers.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Exponential, with the upper half jittered so retries after a provider outage do not arrive in step
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private void submit(Delivery delivery) {
+        try {
+            workers.execute(() -> deliver(delivery));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            log.warn("SMS dispatch queue is full, dropping a message (attempt {})", delivery.attempt());
+        }
+    }
+
+    private void deliver(Delivery delivery) {
+        try {
+            providerPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+            return;
+        }
+        try {
+            provider.send(delivery.phone(), delivery.text());
+            sent.increment();
+        } catch (SmsDeliveryException e) {
+            retryOrFail(delivery, e, e.isRetryable());
+        } catch (RuntimeException e) {
+            retryOrFail(delivery, e, true);
+        } finally {
+            providerPermits.release();
+        }
+    }
+
+    private void retryOrFail(Delivery delivery, RuntimeException error, boolean retryable) {
+        if (!retryable || delivery.attempt() >= maxAttempts || !running) {
+            failed.increment();
+            log.warn("Failed to send text message through {} after {} attempts",
+                    provider.name(), delivery.attempt(), error);
+            return;
+        }
+        retried.increment();
+        try {
+            retryScheduler.schedule(() -> submit(delivery.next()), backoffMillis(delivery.attempt()),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            dropped.increment();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.allesgut.service;
+
+// A gateway that delivers text messages. Calls may block for a remote round trip; SmsDispatcher makes
+// them off the request path, limits how many run at once and retries failures.
+public interface SmsProvider {
+
+    String name();
+
+    // Throws SmsDeliveryException on failure; other runtime exceptions are treated as retryable
+    void send(String phone, String text);
+}
@@ -1,6 +1,7 @@
 package com.allesgut.service;
 
 import com.allesgut.entity.SmsVerificationCode;
+import com.allesgut.exception.SmsUnavailableException;
 import com.allesgut.repository.SmsVerificationCodeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,8 +20,11 @@ public class SmsService {
     private static final Pattern PHONE_PATTERN = Pattern.compile("^1[3-9]\\d{9}$");
     private static final int CODE_LENGTH = 6;
     private static final int CODE_EXPIRATION_MINUTES = 5;
+    private static final String MESSAGE_TEMPLATE = "【AllesGut】您的验证码是%s，%d分钟内有效。";
 
     private final SmsVerificationCodeRepository smsRepository;
+    private final VerificationCodeStore codeStore;
+    private final SmsDispatcher smsDispatcher;
 
     @Transactional
     public String sendVerificationCode(String phone) {
@@ -28,11 +32,14 @@ public class SmsService {
         if (!PHONE_PATTERN.matcher(phone).matches()) {
             throw new IllegalArgumentException("Invalid phone number format");
         }
+        if (smsDispatcher.isSaturated()) {
+            throw new SmsUnavailableException("SMS delivery is busy, please try again later");
+        }
 
         // Generate 6-digit code
         String code = String.format("%06d", ThreadLocalRandom.current().nextInt(1000000));
 
-        // Save to database
+        // Save to database first, so a restart or another node can still verify it
         SmsVerificationCode smsCode = SmsVerificationCode.builder()
                 .phone(phone)
                 .code(code)
@@ -41,29 +48,25 @@ public class SmsService {
                 .build();
 
         smsRepository.save(smsCode);
+        codeStore.put(phone, new VerificationCodeStore.ActiveCode(smsCode.getId(), code, smsCode.getExpiresAt()));
 
-        // Mock SMS send - just log the code
-        log.info("SMS verification code for {}: {}", phone, code);
+        // Delivered after commit by the dispatcher; the request does not wait for the provider
+        smsDispatcher.dispatch(phone, String.format(MESSAGE_TEMPLATE, code, CODE_EXPIRATION_MINUTES));
 
         return code;
     }
 
     @Transactional
     public boolean verifyCode(String phone, String code) {
-        return smsRepository.findTopByPhoneAndCodeOrderByCreatedAtDesc(phone, code)
-                .map(smsCode -> {
-                    if (smsCode.isUsed()) {
-                        return false;
-                    }
-                    if (smsCode.getExpiresAt().isBefore(LocalDateTime.now())) {
-                        return false;
-                    }
+        VerificationCodeStore.ActiveCode active = codeStore.take(phone, code);
+        if (active != null) {
+            return smsRepository.markUsed(active.id()) == 1;
+        }
 
-                    // Mark as used
-                    smsCode.setUsed(true);
-                    smsRepository.save(smsCode);
-                    return true;
-                })
+        // Not sent through this node, or sent before a restart. Either way the conditional update is what
+        // decides, so a code is used once even when several nodes verify it concurrently.
+        return smsRepository.findTopByPhoneAndCodeOrderByCreatedAtDesc(phone, code)
+                .map(smsCode -> smsRepository.markUsed(smsCode.getId()) == 1)
                 .orElse(false);
     }
 }
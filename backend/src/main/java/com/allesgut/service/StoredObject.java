@@ -0,0 +1,3 @@
+package com.allesgut.service;
+
+public record StoredObject(long size, String contentType) {}
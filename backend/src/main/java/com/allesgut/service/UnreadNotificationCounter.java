@@ -0,0 +1,100 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.repository.NotificationStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Serves unread notification counts from memory. The source of truth is notification_states.unread_count,
+// which writers keep current; cached entries are dropped whenever a count changes and expire after a
+// short TTL so changes made on other nodes are picked up.
+@Slf4j
+@Component
+public class UnreadNotificationCounter {
+
+    private final NotificationStateRepository notificationStateRepository;
+    private final long ttlNanos;
+    private final int reconcileBatchSize;
+    private final Map<UUID, CachedCount> counts;
+
+    // Last user reconciled; reconciliation walks all users in user id order, one batch per run
+    private UUID reconciledUpTo;
+
+    public UnreadNotificationCounter(NotificationStateRepository notificationStateRepository,
+                                     NotificationProperties properties) {
+        this.notificationStateRepository = notificationStateRepository;
+        this.ttlNanos = properties.getUnread().getCacheTtl().toNanos();
+        this.reconcileBatchSize = properties.getUnread().getReconcileBatchSize();
+        int cacheSize = properties.getUnread().getCacheSize();
+        this.counts = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedCount> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public long get(UUID userId) {
+        synchronized (counts) {
+            CachedCount cached = counts.get(userId);
+            if (cached != null && System.nanoTime() - cached.loadedAt() <= ttlNanos) {
+                return cached.count();
+            }
+        }
+
+        long count = notificationStateRepository.findUnreadCount(userId).orElse(0);
+        synchronized (counts) {
+            counts.put(userId, new CachedCount(count, System.nanoTime()));
+        }
+        return count;
+    }
+
+    // Drops the cached count now and again after the surrounding transaction commits
+    public void invalidate(UUID userId) {
+        invalidateNow(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(userId);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.unread.reconcile-interval:PT1M}",
+            initialDelayString = "${notifications.unread.reconcile-interval:PT1M}")
+    @Transactional
+    public void reconcile() {
+        List<UUID> userIds = reconciledUpTo == null
+                ? notificationStateRepository.findUserIds(reconcileBatchSize)
+                : notificationStateRepository.findUserIdsAfter(reconciledUpTo, reconcileBatchSize);
+        if (userIds.isEmpty()) {
+            reconciledUpTo = null;
+            return;
+        }
+
+        notificationStateRepository.reconcileUnreadCounts(userIds);
+        userIds.forEach(this::invalidate);
+        reconciledUpTo = userIds.size() < reconcileBatchSize ? null : userIds.get(userIds.size() - 1);
+        log.debug("Reconciled unread notification counts of {} users", userIds.size());
+    }
+
+    private void invalidateNow(UUID userId) {
+        synchronized (counts) {
+            counts.remove(userId);
+        }
+    }
+
+    private record CachedCount(long count, long loadedAt) {}
+}
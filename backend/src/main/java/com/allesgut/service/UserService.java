@@ -25,6 +25,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserFollowRepository userFollowRepository;
     private final NotificationService notificationService;
+    private final ActorCache actorCache;
 
     @Transactional(readOnly = true)
     public UserDto getUserProfile(UUID userId, UUID currentUserId) {
@@ -62,6 +63,7 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        actorCache.invalidate(userId);
         return mapToDto(user);
     }
 
@@ -103,10 +105,9 @@ public class UserService {
         // Create notification for followed user
         notificationService.createNotification(
                 followingId,
-                "follow",
+                NotificationTemplate.FOLLOW,
                 followerId,
-                null,
-                follower.getNickname() + " started following you"
+                null
         );
     }
 
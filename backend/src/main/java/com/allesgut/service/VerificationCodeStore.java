@@ -0,0 +1,79 @@
+package com.allesgut.service;
+
+import com.allesgut.config.AuthProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Unused, unexpired verification codes sent through this node, so verifying one is a map lookup.
+// The table stays the record: codes are written there first, and a code missing here (sent through
+// another node, before a restart, or while the store was full) is looked up there instead.
+@Component
+public class VerificationCodeStore {
+
+    private final int maxPhones;
+    // Lists are never modified in place, only replaced inside compute
+    private final Map<String, List<ActiveCode>> codes = new ConcurrentHashMap<>();
+
+    public VerificationCodeStore(AuthProperties properties) {
+        this.maxPhones = properties.getCodes().getMaxPhones();
+    }
+
+    record ActiveCode(Long id, String code, LocalDateTime expiresAt) {}
+
+    void put(String phone, ActiveCode activeCode) {
+        if (codes.size() >= maxPhones && !codes.containsKey(phone)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        codes.compute(phone, (key, current) -> {
+            List<ActiveCode> updated = new ArrayList<>();
+            if (current != null) {
+                current.stream().filter(active -> active.expiresAt().isAfter(now)).forEach(updated::add);
+            }
+            updated.add(activeCode);
+            return updated;
+        });
+    }
+
+    // Removes and returns the newest unexpired code matching, or null
+    ActiveCode take(String phone, String code) {
+        LocalDateTime now = LocalDateTime.now();
+        ActiveCode[] taken = new ActiveCode[1];
+        codes.computeIfPresent(phone, (key, current) -> {
+            List<ActiveCode> remaining = new ArrayList<>(current.size());
+            for (int i = current.size() - 1; i >= 0; i--) {
+                ActiveCode active = current.get(i);
+                if (taken[0] == null && active.code().equals(code) && active.expiresAt().isAfter(now)) {
+                    taken[0] = active;
+                } else if (active.expiresAt().isAfter(now)) {
+                    remaining.add(0, active);
+                }
+            }
+            return remaining.isEmpty() ? null : remaining;
+        });
+        return taken[0];
+    }
+
+    @Scheduled(fixedDelayString = "${auth.codes.sweep-interval:PT1M}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String phone : codes.keySet()) {
+            codes.computeIfPresent(phone, (key, current) -> {
+                List<ActiveCode> remaining = current.stream()
+                        .filter(active -> active.expiresAt().isAfter(now))
+                        .toList();
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+    }
+
+    int size() {
+        return codes.size();
+    }
+}
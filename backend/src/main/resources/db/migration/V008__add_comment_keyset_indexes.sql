@@ -0,0 +1,8 @@
+-- Keyset pagination over top-level comments of a post
+CREATE INDEX idx_comments_post_top_level ON comments(post_id, created_at, id) WHERE parent_id IS NULL;
+
+-- Keyset pagination and per-parent reply previews
+CREATE INDEX idx_comments_parent_created ON comments(parent_id, created_at, id);
+
+-- Superseded by idx_comments_parent_created
+DROP INDEX idx_comments_parent;
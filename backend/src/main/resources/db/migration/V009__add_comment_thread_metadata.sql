@@ -0,0 +1,43 @@
+-- Denormalized thread metadata for comments
+-- root_id: top-level comment of the thread (NULL for top-level comments)
+-- depth: 0 for top-level comments, parent depth + 1 for replies
+-- reply_count: number of comments anywhere below this comment
+ALTER TABLE comments ADD COLUMN root_id UUID REFERENCES comments(id) ON DELETE CASCADE;
+ALTER TABLE comments ADD COLUMN depth INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE comments ADD COLUMN reply_count INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill root_id and depth for existing threads
+WITH RECURSIVE thread AS (
+    SELECT c.id, c.id AS root_id, 0 AS depth
+    FROM comments c
+    WHERE c.parent_id IS NULL
+    UNION ALL
+    SELECT c.id, t.root_id, t.depth + 1
+    FROM comments c
+    JOIN thread t ON c.parent_id = t.id
+)
+UPDATE comments c
+SET root_id = t.root_id,
+    depth = t.depth
+FROM thread t
+WHERE c.id = t.id
+  AND t.depth > 0;
+
+-- Backfill reply_count from every (ancestor, descendant) pair
+WITH RECURSIVE ancestry AS (
+    SELECT c.id AS descendant_id, c.parent_id AS ancestor_id
+    FROM comments c
+    WHERE c.parent_id IS NOT NULL
+    UNION ALL
+    SELECT a.descendant_id, c.parent_id
+    FROM ancestry a
+    JOIN comments c ON c.id = a.ancestor_id
+    WHERE c.parent_id IS NOT NULL
+)
+UPDATE comments c
+SET reply_count = counts.total
+FROM (SELECT ancestor_id, count(*) AS total FROM ancestry GROUP BY ancestor_id) counts
+WHERE c.id = counts.ancestor_id;
+
+-- Whole-thread fetches and reply previews by root
+CREATE INDEX idx_comments_root_created ON comments(root_id, created_at, id);
@@ -0,0 +1,3 @@
+-- Keyset pagination over top-level comments of a post, most liked first.
+-- Kept current by the likes_count updates of comment like/unlike.
+CREATE INDEX idx_comments_post_hot ON comments(post_id, likes_count DESC, created_at, id) WHERE parent_id IS NULL;
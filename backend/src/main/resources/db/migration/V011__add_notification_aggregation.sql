@@ -0,0 +1,10 @@
+-- Aggregated notifications: one row per (recipient, type, related id) within the aggregation window
+-- actor_count: number of actor events folded into the row
+-- recent_actor_ids: up to three most recent actors, latest first
+ALTER TABLE notifications ADD COLUMN actor_count INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN recent_actor_ids UUID[];
+
+UPDATE notifications SET recent_actor_ids = ARRAY[actor_id] WHERE actor_id IS NOT NULL;
+
+-- Lookup of the open group an incoming event is folded into
+CREATE INDEX idx_notifications_group ON notifications(user_id, type, related_id, created_at DESC);
@@ -0,0 +1,13 @@
+-- Per-user notification state; unread_count is maintained by the notification writer and by
+-- mark-as-read, and periodically reconciled against the notifications table
+CREATE TABLE notification_states (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO notification_states (user_id, unread_count)
+SELECT user_id, count(*)
+FROM notifications
+WHERE is_read = FALSE
+GROUP BY user_id;
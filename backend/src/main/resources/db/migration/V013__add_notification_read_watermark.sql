@@ -0,0 +1,3 @@
+-- Mark-all-as-read watermark: a notification is read if is_read is set or its last activity
+-- (notifications.updated_at, bumped when events are folded into it) is not after last_read_at
+ALTER TABLE notification_states ADD COLUMN last_read_at TIMESTAMP;
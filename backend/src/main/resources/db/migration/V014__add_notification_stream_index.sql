@@ -0,0 +1,3 @@
+-- Resuming a notification stream reads a user's notifications after the (updated_at, id) of the
+-- last event the client received.
+CREATE INDEX idx_notifications_user_updated ON notifications(user_id, updated_at, id);
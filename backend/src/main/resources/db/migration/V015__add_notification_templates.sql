@@ -0,0 +1,17 @@
+-- Notification texts are rendered from a template and the actors' current nicknames when read.
+-- content is only kept for rows without a template.
+ALTER TABLE notifications ADD COLUMN template VARCHAR(32);
+ALTER TABLE notifications ALTER COLUMN content DROP NOT NULL;
+
+UPDATE notifications SET template = 'POST_COMMENT', content = NULL
+WHERE type = 'comment' AND content LIKE '% commented on your post';
+UPDATE notifications SET template = 'COMMENT_REPLY', content = NULL
+WHERE type = 'comment' AND content LIKE '% replied to your comment';
+UPDATE notifications SET template = 'COMMENT_MENTION', content = NULL
+WHERE type = 'mention' AND content LIKE '% mentioned you in a comment';
+UPDATE notifications SET template = 'POST_LIKE', content = NULL
+WHERE type = 'like' AND content LIKE '% liked your post';
+UPDATE notifications SET template = 'COMMENT_LIKE', content = NULL
+WHERE type = 'like' AND content LIKE '% liked your comment';
+UPDATE notifications SET template = 'FOLLOW', content = NULL
+WHERE type = 'follow' AND content LIKE '% started following you';
@@ -0,0 +1,68 @@
+-- Monthly range partitions of notifications by created_at, so retention drops whole partitions and
+-- list reads only touch recent ones. The existing table stays in service while its rows are copied
+-- over in batches by NotificationPartitionMaintainer; a trigger mirrors every change made meanwhile.
+-- Once the copy is complete the maintainer swaps the tables and keeps the old one as notifications_legacy.
+
+UPDATE notifications SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+
+-- Same columns in the same order, so rows copy over with SELECT *
+CREATE TABLE notifications_partitioned (
+    LIKE notifications INCLUDING DEFAULTS,
+    PRIMARY KEY (id, created_at),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (actor_id) REFERENCES users(id) ON DELETE SET NULL
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_notifications_p_user ON notifications_partitioned(user_id, created_at DESC);
+CREATE INDEX idx_notifications_p_is_read ON notifications_partitioned(user_id, is_read);
+CREATE INDEX idx_notifications_p_group ON notifications_partitioned(user_id, type, related_id, created_at DESC);
+CREATE INDEX idx_notifications_p_user_updated ON notifications_partitioned(user_id, updated_at, id);
+
+-- Partitions are named notifications_yYYYYmMM; the maintainer creates upcoming months and drops
+-- expired ones. The default partition only catches rows outside all months and stays empty normally.
+DO $$
+DECLARE
+    partition_month DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM notifications), CURRENT_TIMESTAMP));
+BEGIN
+    WHILE partition_month <= date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_y' || to_char(partition_month, 'YYYY') || 'm' || to_char(partition_month, 'MM'),
+                       partition_month, partition_month + INTERVAL '1 month');
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+CREATE TABLE notifications_default PARTITION OF notifications_partitioned DEFAULT;
+
+CREATE FUNCTION mirror_notification() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM notifications_partitioned WHERE id = OLD.id AND created_at = OLD.created_at;
+        RETURN OLD;
+    END IF;
+    INSERT INTO notifications_partitioned SELECT NEW.*
+    ON CONFLICT (id, created_at) DO UPDATE SET
+        user_id = EXCLUDED.user_id,
+        type = EXCLUDED.type,
+        actor_id = EXCLUDED.actor_id,
+        related_id = EXCLUDED.related_id,
+        content = EXCLUDED.content,
+        is_read = EXCLUDED.is_read,
+        updated_at = EXCLUDED.updated_at,
+        actor_count = EXCLUDED.actor_count,
+        recent_actor_ids = EXCLUDED.recent_actor_ids,
+        template = EXCLUDED.template;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notifications_mirror
+AFTER INSERT OR UPDATE OR DELETE ON notifications
+FOR EACH ROW EXECUTE FUNCTION mirror_notification();
+
+-- Progress of the batched copy; completed_at is set when the tables have been swapped
+CREATE TABLE notification_partition_migration (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    copied_up_to UUID,
+    completed_at TIMESTAMP
+);
+INSERT INTO notification_partition_migration DEFAULT VALUES;
@@ -0,0 +1,28 @@
+-- Per-user token revocation: tokens of the user issued before not_before are rejected.
+-- A row matters only for the token lifetime after not_before; older rows may be deleted.
+-- Nodes keep the rows changed within the token lifetime in memory and poll updated_at for changes.
+CREATE TABLE token_revocations (
+    user_id UUID PRIMARY KEY,
+    not_before TIMESTAMP NOT NULL,
+    reason VARCHAR(32) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_token_revocations_updated ON token_revocations(updated_at);
+
+-- A deleted user's tokens stop working without a lookup of the user per request
+CREATE FUNCTION revoke_deleted_user_tokens() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO token_revocations (user_id, not_before, reason)
+    VALUES (OLD.id, CURRENT_TIMESTAMP, 'deleted')
+    ON CONFLICT (user_id) DO UPDATE SET
+        not_before = EXCLUDED.not_before,
+        reason = EXCLUDED.reason,
+        updated_at = CURRENT_TIMESTAMP;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER users_revoke_tokens
+AFTER DELETE ON users
+FOR EACH ROW EXECUTE FUNCTION revoke_deleted_user_tokens();
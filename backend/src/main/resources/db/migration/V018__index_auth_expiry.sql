@@ -0,0 +1,6 @@
+-- Verification falls back to the table for codes this node does not hold
+CREATE INDEX idx_sms_phone_code ON sms_verification_codes(phone, code);
+
+-- Range scans for the batched purge of expired rows
+CREATE INDEX idx_sms_expires_at ON sms_verification_codes(expires_at);
+CREATE INDEX idx_sessions_expires_at ON user_sessions(expires_at);
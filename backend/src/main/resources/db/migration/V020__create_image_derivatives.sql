@@ -0,0 +1,8 @@
+-- Downscaled copies of uploaded images, keyed by the original's URL as posts reference it
+CREATE TABLE image_derivatives (
+    source_url VARCHAR(500) NOT NULL,
+    width INTEGER NOT NULL,
+    url VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (source_url, width)
+);
@@ -0,0 +1,9 @@
+-- Stored uploads by the SHA-256 of their bytes, so an upload of the same bytes reuses the stored object.
+-- ref_count counts the uploads that resolved to the object, for cleaning up unreferenced objects later.
+CREATE TABLE media_objects (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    object_key VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,42 @@
+-- Order in which notification rows were written or last folded into, for resuming notification streams.
+-- updated_at is the time of the latest event, which a late write (queue, outbox replay, another node)
+-- can carry from before rows written already. NotificationWriter takes a per-recipient lock before
+-- drawing values, so a recipient's rows become visible in write_seq order.
+CREATE SEQUENCE notification_write_seq;
+
+ALTER TABLE notifications ADD COLUMN write_seq BIGINT NOT NULL DEFAULT nextval('notification_write_seq');
+CREATE INDEX idx_notifications_user_write_seq ON notifications(user_id, write_seq);
+
+-- Before the move to the partitioned table is complete (see V016) both tables need the column, at the
+-- same position, so rows still copy over with SELECT *
+DO $$
+BEGIN
+    IF to_regclass('notifications_partitioned') IS NOT NULL THEN
+        ALTER TABLE notifications_partitioned
+            ADD COLUMN write_seq BIGINT NOT NULL DEFAULT nextval('notification_write_seq');
+        CREATE INDEX idx_notifications_p_user_write_seq ON notifications_partitioned(user_id, write_seq);
+    END IF;
+END $$;
+
+CREATE OR REPLACE FUNCTION mirror_notification() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM notifications_partitioned WHERE id = OLD.id AND created_at = OLD.created_at;
+        RETURN OLD;
+    END IF;
+    INSERT INTO notifications_partitioned SELECT NEW.*
+    ON CONFLICT (id, created_at) DO UPDATE SET
+        user_id = EXCLUDED.user_id,
+        type = EXCLUDED.type,
+        actor_id = EXCLUDED.actor_id,
+        related_id = EXCLUDED.related_id,
+        content = EXCLUDED.content,
+        is_read = EXCLUDED.is_read,
+        updated_at = EXCLUDED.updated_at,
+        actor_count = EXCLUDED.actor_count,
+        recent_actor_ids = EXCLUDED.recent_actor_ids,
+        template = EXCLUDED.template,
+        write_seq = EXCLUDED.write_seq;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
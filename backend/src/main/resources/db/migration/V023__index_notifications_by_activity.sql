@@ -0,0 +1,13 @@
+-- The notification list is ordered by latest activity (updated_at desc, id desc). This index replaces
+-- the (user_id, updated_at, id) one from V014/V016, which still serves the ascending stream lookups.
+CREATE INDEX idx_notifications_user_activity ON notifications(user_id, updated_at DESC, id DESC);
+DROP INDEX idx_notifications_user_updated;
+
+DO $$
+BEGIN
+    IF to_regclass('notifications_partitioned') IS NOT NULL THEN
+        CREATE INDEX idx_notifications_p_user_activity
+            ON notifications_partitioned(user_id, updated_at DESC, id DESC);
+        DROP INDEX idx_notifications_p_user_updated;
+    END IF;
+END $$;
@@ -3,6 +3,9 @@ package com.allesgut;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
@@ -25,6 +28,14 @@ public abstract class LocalhostSchemaTestBase {
         }
     }
 
+    private static String createTempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @DynamicPropertySource
     static void registerProperties(DynamicPropertyRegistry registry) {
         executeAdminSql("create schema if not exists " + SCHEMA);
@@ -36,6 +47,10 @@ public abstract class LocalhostSchemaTestBase {
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
         registry.add("spring.flyway.enabled", () -> true);
 
+        // Every application context gets its own notification outbox, which is locked while the context runs
+        String outboxDirectory = createTempDirectory("notification-outbox");
+        registry.add("notifications.writer.outbox-directory", () -> outboxDirectory);
+
         // Do NOT auto-drop schema on shutdown; it can run before async Spring shutdown completes.
         // Cleanup is manual/periodic: DROP SCHEMA test_xxx CASCADE.
     }
@@ -4,6 +4,8 @@ import com.allesgut.dto.request.SendSmsRequest;
 import com.allesgut.dto.request.VerifySmsRequest;
 import com.allesgut.dto.response.LoginResponse;
 import com.allesgut.dto.response.UserDto;
+import com.allesgut.exception.RateLimitExceededException;
+import com.allesgut.security.AuthRateLimiter;
 import com.allesgut.service.AuthService;
 import com.allesgut.service.SmsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,7 +20,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -40,6 +46,9 @@ class AuthControllerTests {
     @MockBean
     private AuthService authService;
 
+    @MockBean
+    private AuthRateLimiter rateLimiter;
+
     @Test
     void shouldSendSmsSuccessfully() throws Exception {
         // Given
@@ -56,6 +65,23 @@ class AuthControllerTests {
                 .andExpect(jsonPath("$.message").value("验证码已发送"));
     }
 
+    @Test
+    void shouldRejectSmsSendWhenRateLimited() throws Exception {
+        // Given
+        SendSmsRequest request = new SendSmsRequest("13800138000");
+        doThrow(new RateLimitExceededException("Too many requests, please try again later", 42))
+                .when(rateLimiter).checkSmsSend(eq("13800138000"), anyString());
+
+        // When/Then
+        mockMvc.perform(post("/api/auth/sms/send")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "42"))
+                .andExpect(jsonPath("$.success").value(false));
+        verify(smsService, never()).sendVerificationCode(anyString());
+    }
+
     @Test
     void shouldRejectInvalidPhone() throws Exception {
         // Given
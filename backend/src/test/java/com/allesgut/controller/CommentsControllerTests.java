@@ -2,9 +2,10 @@ package com.allesgut.controller;
 
 import com.allesgut.dto.request.CreateCommentRequest;
 import com.allesgut.dto.response.CommentDto;
-import com.allesgut.dto.response.PageResponse;
+import com.allesgut.dto.response.CursorPageResponse;
 import com.allesgut.dto.response.UserDto;
 import com.allesgut.service.CommentService;
+import com.allesgut.service.CommentSort;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -63,6 +64,7 @@ class CommentsControllerTests {
                 false,
                 List.of(),
                 List.of(),
+                0,
                 LocalDateTime.now(),
                 LocalDateTime.now()
         );
@@ -126,14 +128,15 @@ class CommentsControllerTests {
                 false,
                 List.of(),
                 List.of(),
+                0,
                 LocalDateTime.now(),
                 LocalDateTime.now()
         );
 
-        PageResponse<CommentDto> pageResponse = PageResponse.of(
-                List.of(commentDto), 0, 20, 1);
+        CursorPageResponse<CommentDto> pageResponse = CursorPageResponse.of(
+                List.of(commentDto), 20, "next-cursor");
 
-        when(commentService.getCommentsByPost(any(UUID.class), any(), anyInt(), anyInt()))
+        when(commentService.getCommentsByPost(any(UUID.class), any(), eq(CommentSort.NEW), any(), anyInt()))
                 .thenReturn(pageResponse);
 
         // When/Then
@@ -141,7 +144,47 @@ class CommentsControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.data[0].content").value("Test comment"))
-                .andExpect(jsonPath("$.data.total").value(1));
+                .andExpect(jsonPath("$.data.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+    }
+
+    @Test
+    void shouldGetHotCommentsByPost() throws Exception {
+        // Given
+        UUID postId = UUID.randomUUID();
+        CursorPageResponse<CommentDto> pageResponse = CursorPageResponse.of(List.of(), 20, null);
+
+        when(commentService.getCommentsByPost(eq(postId), any(), eq(CommentSort.HOT), any(), eq(20)))
+                .thenReturn(pageResponse);
+
+        // When/Then
+        mockMvc.perform(get("/api/posts/{postId}/comments", postId).param("sort", "hot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
+    }
+
+    @Test
+    void shouldRejectUnknownCommentSort() throws Exception {
+        mockMvc.perform(get("/api/posts/{postId}/comments", UUID.randomUUID()).param("sort", "random"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldGetRepliesWithCursor() throws Exception {
+        // Given
+        UUID commentId = UUID.randomUUID();
+        CursorPageResponse<CommentDto> pageResponse = CursorPageResponse.of(List.of(), 20, null);
+
+        when(commentService.getReplies(eq(commentId), any(), eq("abc"), eq(20)))
+                .thenReturn(pageResponse);
+
+        // When/Then
+        mockMvc.perform(get("/api/comments/{id}/replies", commentId)
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -0,0 +1,102 @@
+package com.allesgut.controller;
+
+import com.allesgut.service.LocalObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "storage.backend=local")
+@AutoConfigureMockMvc
+class StorageControllerTests {
+
+    private static final String KEY = "images/user/a.png";
+    private static final byte[] PNG = Arrays.copyOf(new byte[] {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D, 'I', 'H', 'D', 'R'}, 64);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LocalObjectStorage storage;
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) throws IOException {
+        String root = Files.createTempDirectory("storage").toString();
+        registry.add("storage.local.root", () -> root);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage.put(KEY, new ByteArrayInputStream(PNG), PNG.length, "image/png");
+    }
+
+    @Test
+    void shouldServeObjectWithCacheHeaders() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/api/storage/" + KEY))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(PNG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then
+        mockMvc.perform(get("/api/storage/" + KEY).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void shouldServeRequestedRange() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/storage/" + KEY).header(HttpHeaders.RANGE, "bytes=4-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-9/64"))
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 4, 10)));
+        mockMvc.perform(get("/api/storage/" + KEY).header(HttpHeaders.RANGE, "bytes=64-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */64"));
+    }
+
+    @Test
+    void shouldNotServeMissingOrHiddenFiles() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/storage/images/user/missing.png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/storage/.multipart/part"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldNotReplaceObjectThroughUploadUrl() throws Exception {
+        // Given
+        URI uploadUrl = URI.create(storage.presignPut(KEY, "image/png", 1024, Instant.now().plusSeconds(60)));
+
+        // When/Then
+        mockMvc.perform(put(uploadUrl.getRawPath() + "?" + uploadUrl.getRawQuery())
+                        .contentType("image/png")
+                        .content(PNG))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/storage/" + KEY))
+                .andExpect(content().bytes(PNG));
+    }
+}
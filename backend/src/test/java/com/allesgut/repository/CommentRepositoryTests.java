@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +32,9 @@ class CommentRepositoryTests extends com.allesgut.LocalhostSchemaTestBase {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User testUser;
     private Post testPost;
 
@@ -144,4 +148,72 @@ class CommentRepositoryTests extends com.allesgut.LocalhostSchemaTestBase {
         // Then
         assertThat(count).isEqualTo(2);
     }
+
+    @Test
+    void shouldAdjustReplyCountOfAllAncestors() {
+        // Given
+        Comment root = commentRepository.save(Comment.builder()
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Root")
+                .build());
+        Comment reply = commentRepository.save(Comment.builder()
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .parentId(root.getId())
+                .rootId(root.getId())
+                .depth(1)
+                .content("Reply")
+                .build());
+        Comment nestedReply = commentRepository.save(Comment.builder()
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .parentId(reply.getId())
+                .rootId(root.getId())
+                .depth(2)
+                .content("Nested reply")
+                .build());
+        commentRepository.flush();
+
+        // When
+        commentRepository.adjustReplyCountOfAncestors(reply.getParentId(), 1);
+        commentRepository.adjustReplyCountOfAncestors(nestedReply.getParentId(), 1);
+        entityManager.clear();
+
+        // Then
+        assertThat(commentRepository.findById(root.getId()))
+                .get().extracting(Comment::getReplyCount).isEqualTo(2);
+        assertThat(commentRepository.findById(reply.getId()))
+                .get().extracting(Comment::getReplyCount).isEqualTo(1);
+        assertThat(commentRepository.findById(nestedReply.getId()))
+                .get().extracting(Comment::getReplyCount).isEqualTo(0);
+        assertThat(commentRepository.findRepliesByRootId(root.getId(), 10))
+                .extracting(Comment::getContent)
+                .containsExactly("Reply", "Nested reply");
+    }
+
+    @Test
+    void shouldPageTopLevelCommentsByLikesThenAge() {
+        // Given
+        for (String content : List.of("Quiet", "Popular", "Also popular")) {
+            commentRepository.save(Comment.builder()
+                    .postId(testPost.getId())
+                    .userId(testUser.getId())
+                    .content(content)
+                    .likesCount(content.equals("Quiet") ? 0 : 5)
+                    .build());
+        }
+        commentRepository.flush();
+        entityManager.clear();
+
+        // When
+        List<Comment> firstPage = commentRepository.findHotTopLevelByPostId(testPost.getId(), 2);
+        Comment last = firstPage.get(1);
+        List<Comment> secondPage = commentRepository.findHotTopLevelByPostIdAfter(
+                testPost.getId(), last.getLikesCount(), last.getCreatedAt(), last.getId(), 2);
+
+        // Then
+        assertThat(firstPage).extracting(Comment::getContent).containsExactly("Popular", "Also popular");
+        assertThat(secondPage).extracting(Comment::getContent).containsExactly("Quiet");
+    }
 }
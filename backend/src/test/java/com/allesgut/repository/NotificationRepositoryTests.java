@@ -11,6 +11,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
@@ -87,12 +90,44 @@ class NotificationRepositoryTests extends com.allesgut.LocalhostSchemaTestBase {
 
         // When
         Page<Notification> notifications = notificationRepository
-                .findByUserIdOrderByCreatedAtDesc(testUser.getId(), PageRequest.of(0, 10));
+                .findRecentByUserId(testUser.getId(),
+                        LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(2), PageRequest.of(0, 10));
 
         // Then
         assertThat(notifications.getContent()).hasSize(2);
     }
 
+    @Test
+    void shouldListNotificationsByLatestActivity() {
+        // Given
+        Notification folded = notificationRepository.saveAndFlush(Notification.builder()
+                .userId(testUser.getId())
+                .type("like")
+                .actorId(actor.getId())
+                .content("Folded")
+                .isRead(false)
+                .build());
+        Notification newer = notificationRepository.saveAndFlush(Notification.builder()
+                .userId(testUser.getId())
+                .type("comment")
+                .actorId(actor.getId())
+                .content("Newer")
+                .isRead(false)
+                .build());
+        folded.setContent("Folded again");
+        notificationRepository.saveAndFlush(folded);
+
+        // When
+        List<Notification> notifications = notificationRepository
+                .findRecentByUserId(testUser.getId(),
+                        LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(2), PageRequest.of(0, 10))
+                .getContent();
+
+        // Then
+        assertThat(notifications).extracting(Notification::getId)
+                .containsExactly(folded.getId(), newer.getId());
+    }
+
     @Test
     void shouldCountUnreadNotifications() {
         // Given
@@ -121,4 +156,47 @@ class NotificationRepositoryTests extends com.allesgut.LocalhostSchemaTestBase {
         // Then
         assertThat(unreadCount).isEqualTo(1);
     }
+
+    @Test
+    void shouldMarkAsReadOnlyOnceAndOnlyForOwner() {
+        // Given
+        Notification notification = notificationRepository.saveAndFlush(Notification.builder()
+                .userId(testUser.getId())
+                .type("comment")
+                .actorId(actor.getId())
+                .content("Actor commented on your post")
+                .isRead(false)
+                .build());
+        LocalDateTime createdSince = LocalDateTime.now().minusDays(1);
+
+        // When/Then
+        assertThat(notificationRepository.markAsRead(notification.getId(), actor.getId(), createdSince)).isZero();
+        assertThat(notificationRepository.markAsRead(notification.getId(), testUser.getId(), createdSince)).isEqualTo(1);
+        assertThat(notificationRepository.markAsRead(notification.getId(), testUser.getId(), createdSince)).isZero();
+    }
+
+    @Test
+    void shouldFindNotificationsWrittenAfterPosition() {
+        // Given
+        Notification older = notificationRepository.saveAndFlush(Notification.builder()
+                .userId(testUser.getId())
+                .type("comment")
+                .actorId(actor.getId())
+                .content("Older")
+                .isRead(false)
+                .build());
+        Notification newer = notificationRepository.saveAndFlush(Notification.builder()
+                .userId(testUser.getId())
+                .type("comment")
+                .actorId(actor.getId())
+                .content("Newer")
+                .isRead(false)
+                .build());
+
+        // When
+        List<Notification> found = notificationRepository.findWrittenAfter(testUser.getId(), older.getWriteSeq(), 10);
+
+        // Then
+        assertThat(found).extracting(Notification::getId).containsExactly(newer.getId());
+    }
 }
@@ -0,0 +1,33 @@
+package com.allesgut.security;
+
+import com.allesgut.config.RateLimitProperties;
+import com.allesgut.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthRateLimiterTests {
+
+    @Test
+    void shouldNotUseIpBudgetWhenPhoneIsLimited() {
+        // Given
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getSms().setSendPerIp(new RateLimitProperties.Limit(2, Duration.ofMinutes(1)));
+        properties.getSms().setSendPerPhone(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)));
+        AuthRateLimiter rateLimiter = new AuthRateLimiter(properties, new SimpleMeterRegistry());
+        rateLimiter.checkSmsSend("13800138000", "10.0.0.1");
+
+        // When
+        assertThatThrownBy(() -> rateLimiter.checkSmsSend("13800138000", "10.0.0.1"))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatThrownBy(() -> rateLimiter.checkSmsSend("13800138000", "10.0.0.1"))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        // Then
+        assertThatCode(() -> rateLimiter.checkSmsSend("13800138001", "10.0.0.1")).doesNotThrowAnyException();
+    }
+}
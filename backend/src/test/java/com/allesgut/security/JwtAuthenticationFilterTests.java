@@ -13,6 +13,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -30,6 +32,9 @@ class JwtAuthenticationFilterTests {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @Test
     void shouldAllowRequestWithValidToken() throws Exception {
         // Given
@@ -49,6 +54,25 @@ class JwtAuthenticationFilterTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void shouldRejectRequestWithRevokedToken() throws Exception {
+        // Given
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .phone("13800138000")
+                .nickname("Test User")
+                .build();
+
+        String token = jwtService.generateToken(user);
+        when(tokenRevocationRegistry.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        // When/Then
+        mockMvc.perform(get("/api/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        verify(userRepository, never()).findById(any(UUID.class));
+    }
+
     @Test
     void shouldRejectRequestWithoutToken() throws Exception {
         // When/Then
@@ -5,6 +5,7 @@ import com.allesgut.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -112,4 +113,64 @@ class JwtServiceTests {
         // Then
         assertThat(isValid).isFalse();
     }
+
+    @Test
+    void shouldReturnSameVerifiedTokenOnRepeatVerification() {
+        // Given
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .phone("13800138000")
+                .nickname("Test User")
+                .build();
+        String token = jwtService.generateToken(user);
+
+        // When
+        Optional<VerifiedToken> first = jwtService.verify(token);
+        Optional<VerifiedToken> second = jwtService.verify(token);
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(first.get().userId()).isEqualTo(user.getId());
+        assertThat(second).containsSame(first.get());
+    }
+
+    @Test
+    void shouldRejectCachedTokenOnceExpired() throws InterruptedException {
+        // Given
+        JwtProperties shortExpiryProperties = new JwtProperties();
+        shortExpiryProperties.setSecret("testSecretKeyThatIsLongEnoughForHS256AlgorithmRequirement");
+        shortExpiryProperties.setExpiration(1_000L);
+        JwtService shortExpiryJwtService = new JwtService(shortExpiryProperties);
+
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .phone("13800138000")
+                .nickname("Test User")
+                .build();
+        String token = shortExpiryJwtService.generateToken(user);
+        assertThat(shortExpiryJwtService.verify(token)).isPresent();
+
+        // When
+        Thread.sleep(1_100);
+
+        // Then
+        assertThat(shortExpiryJwtService.verify(token)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherKey() {
+        // Given
+        JwtProperties otherProperties = new JwtProperties();
+        otherProperties.setSecret("anotherSecretKeyThatIsLongEnoughForHS256AlgorithmRequirement");
+        otherProperties.setExpiration(3600000L);
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .phone("13800138000")
+                .nickname("Test User")
+                .build();
+        String forged = new JwtService(otherProperties).generateToken(user);
+
+        // When/Then
+        assertThat(jwtService.verify(forged)).isEmpty();
+    }
 }
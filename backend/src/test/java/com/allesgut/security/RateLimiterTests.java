@@ -0,0 +1,111 @@
+package com.allesgut.security;
+
+import com.allesgut.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenRejectUntilRefilled() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(3, Duration.ofSeconds(10)), 100);
+        long now = 1_000 * SECOND;
+
+        // When
+        long first = limiter.tryAcquire("13800138000", now);
+        long second = limiter.tryAcquire("13800138000", now);
+        long third = limiter.tryAcquire("13800138000", now);
+        long rejected = limiter.tryAcquire("13800138000", now + SECOND);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(rejected).isEqualTo(9 * SECOND);
+        assertThat(limiter.tryAcquire("13800138000", now + 10 * SECOND)).isZero();
+    }
+
+    @Test
+    void shouldKeepKeysApart() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), 100);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("13800138000", now);
+
+        // When/Then
+        assertThat(limiter.tryAcquire("13800138000", now)).isPositive();
+        assertThat(limiter.tryAcquire("13800138001", now)).isZero();
+    }
+
+    @Test
+    void shouldDropOnlyRefilledBucketsOnSweep() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(1, Duration.ofSeconds(10)), 100);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("old", now);
+        limiter.tryAcquire("recent", now + 5 * SECOND);
+
+        // When
+        limiter.sweep(now + 10 * SECOND);
+
+        // Then
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("recent", now + 10 * SECOND)).isPositive();
+    }
+
+    @Test
+    void shouldEvictOldestBucketWhenFull() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), 2);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("13800138000", now);
+        limiter.tryAcquire("13800138001", now + SECOND);
+
+        // When
+        long acquired = limiter.tryAcquire("13800138002", now + 2 * SECOND);
+
+        // Then
+        assertThat(acquired).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("13800138001", now + 2 * SECOND)).isPositive();
+        assertThat(limiter.tryAcquire("13800138002", now + 2 * SECOND)).isPositive();
+    }
+
+    @Test
+    void shouldGiveBackReleasedToken() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), 100);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("10.0.0.1", now);
+
+        // When
+        limiter.release("10.0.0.1");
+
+        // Then
+        assertThat(limiter.tryAcquire("10.0.0.1", now)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", now)).isPositive();
+    }
+
+    @Test
+    void shouldEvictRefilledBucketsToTrackNewKey() {
+        // Given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)), 1);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("13800138000", now);
+
+        // When: the first bucket is full again
+        long acquired = limiter.tryAcquire("13800138001", now + 60 * SECOND);
+
+        // Then
+        assertThat(acquired).isZero();
+        assertThat(limiter.tryAcquire("13800138001", now + 60 * SECOND)).isPositive();
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
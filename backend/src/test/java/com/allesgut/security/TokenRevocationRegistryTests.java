@@ -0,0 +1,113 @@
+package com.allesgut.security;
+
+import com.allesgut.config.JwtProperties;
+import com.allesgut.entity.TokenRevocation;
+import com.allesgut.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTests {
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private TokenRevocationRegistry registry;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setExpiration(Duration.ofDays(30).toMillis());
+        registry = new TokenRevocationRegistry(tokenRevocationRepository, jwtProperties);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldRejectTokensIssuedBeforeRevocation() {
+        // Given
+        LocalDateTime revokedAt = LocalDateTime.now();
+        when(tokenRevocationRepository.findByUpdatedAtAfterOrderByUpdatedAt(any()))
+                .thenReturn(List.of(revocation(userId, revokedAt, revokedAt)));
+
+        // When
+        registry.refresh();
+
+        // Then
+        Instant now = Instant.now();
+        assertThat(registry.isRevoked(token(userId, now.minus(Duration.ofHours(1))))).isTrue();
+        assertThat(registry.isRevoked(token(userId, now.plusSeconds(1)))).isFalse();
+        assertThat(registry.isRevoked(token(UUID.randomUUID(), now.minus(Duration.ofHours(1))))).isFalse();
+    }
+
+    @Test
+    void shouldApplyLocalRevocationImmediately() {
+        // Given
+        Instant issuedAt = Instant.now().minusSeconds(60);
+
+        // When
+        registry.revoke(userId, Instant.now(), "logout");
+
+        // Then
+        verify(tokenRevocationRepository).upsert(eq(userId), any(LocalDateTime.class), eq("logout"));
+        assertThat(registry.isRevoked(token(userId, issuedAt))).isTrue();
+    }
+
+    @Test
+    void shouldReadOnlyChangesSinceLastRefresh() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.now().minusMinutes(5);
+        when(tokenRevocationRepository.findByUpdatedAtAfterOrderByUpdatedAt(any()))
+                .thenReturn(List.of(revocation(userId, updatedAt, updatedAt)), List.of());
+        registry.refresh();
+
+        // When
+        registry.refresh();
+
+        // Then
+        verify(tokenRevocationRepository).findByUpdatedAtAfterOrderByUpdatedAt(updatedAt.minusSeconds(30));
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldForgetRevocationsOlderThanTokenLifetime() {
+        // Given
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(31);
+        when(tokenRevocationRepository.findByUpdatedAtAfterOrderByUpdatedAt(any()))
+                .thenReturn(List.of(revocation(userId, longAgo, LocalDateTime.now())));
+
+        // When
+        registry.refresh();
+
+        // Then
+        assertThat(registry.size()).isZero();
+    }
+
+    private static TokenRevocation revocation(UUID userId, LocalDateTime notBefore, LocalDateTime updatedAt) {
+        return TokenRevocation.builder()
+                .userId(userId)
+                .notBefore(notBefore)
+                .reason("deleted")
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private static VerifiedToken token(UUID userId, Instant issuedAt) {
+        return new VerifiedToken(userId, issuedAt, issuedAt.plus(Duration.ofDays(30)));
+    }
+}
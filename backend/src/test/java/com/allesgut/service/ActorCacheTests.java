@@ -0,0 +1,67 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.dto.response.PublicUserDto;
+import com.allesgut.entity.User;
+import com.allesgut.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActorCacheTests {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private ActorCache actorCache;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        actorCache = new ActorCache(userRepository, new NotificationProperties());
+        alice = User.builder().id(UUID.randomUUID()).phone("13800138001").nickname("Alice").build();
+        bob = User.builder().id(UUID.randomUUID()).phone("13800138002").nickname("Bob").build();
+    }
+
+    @Test
+    void shouldLoadOnlyMissingActorsInOneQuery() {
+        // Given
+        when(userRepository.findByIdIn(List.of(alice.getId()))).thenReturn(List.of(alice));
+        when(userRepository.findByIdIn(List.of(bob.getId()))).thenReturn(List.of(bob));
+        actorCache.getAll(List.of(alice.getId()));
+
+        // When
+        Map<UUID, PublicUserDto> actors = actorCache.getAll(List.of(alice.getId(), bob.getId()));
+
+        // Then
+        assertThat(actors).containsOnlyKeys(alice.getId(), bob.getId());
+        assertThat(actors.get(bob.getId()).nickname()).isEqualTo("Bob");
+        verify(userRepository, times(2)).findByIdIn(anyList());
+    }
+
+    @Test
+    void shouldReloadActorAfterInvalidation() {
+        // Given
+        User renamed = User.builder().id(alice.getId()).phone(alice.getPhone()).nickname("Alice Renamed").build();
+        when(userRepository.findByIdIn(List.of(alice.getId()))).thenReturn(List.of(alice), List.of(renamed));
+        actorCache.getAll(List.of(alice.getId()));
+
+        // When
+        actorCache.invalidate(alice.getId());
+
+        // Then
+        assertThat(actorCache.getAll(List.of(alice.getId())).get(alice.getId()).nickname()).isEqualTo("Alice Renamed");
+    }
+}
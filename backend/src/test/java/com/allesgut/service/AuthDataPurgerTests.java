@@ -0,0 +1,68 @@
+package com.allesgut.service;
+
+import com.allesgut.LocalhostSchemaTestBase;
+import com.allesgut.entity.SmsVerificationCode;
+import com.allesgut.entity.User;
+import com.allesgut.entity.UserSession;
+import com.allesgut.repository.SmsVerificationCodeRepository;
+import com.allesgut.repository.UserRepository;
+import com.allesgut.repository.UserSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AuthDataPurgerTests extends LocalhostSchemaTestBase {
+
+    @Autowired
+    private AuthDataPurger purger;
+
+    @Autowired
+    private SmsVerificationCodeRepository smsRepository;
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void shouldPurgeOnlyExpiredCodesAndSessions() {
+        // Given
+        SmsVerificationCode expiredCode = smsRepository.save(code(LocalDateTime.now().minusMinutes(1)));
+        SmsVerificationCode activeCode = smsRepository.save(code(LocalDateTime.now().plusMinutes(5)));
+        User user = userRepository.save(User.builder().phone("13900139001").nickname("Purged").build());
+        UserSession expiredSession = sessionRepository.save(session(user, "expired-token", LocalDateTime.now().minusDays(1)));
+        UserSession activeSession = sessionRepository.save(session(user, "active-token", LocalDateTime.now().plusDays(1)));
+
+        // When
+        purger.purge();
+
+        // Then
+        assertThat(smsRepository.findById(expiredCode.getId())).isEmpty();
+        assertThat(smsRepository.findById(activeCode.getId())).isPresent();
+        assertThat(sessionRepository.findById(expiredSession.getId())).isEmpty();
+        assertThat(sessionRepository.findById(activeSession.getId())).isPresent();
+    }
+
+    private static SmsVerificationCode code(LocalDateTime expiresAt) {
+        return SmsVerificationCode.builder()
+                .phone("13900139001")
+                .code("123456")
+                .expiresAt(expiresAt)
+                .used(false)
+                .build();
+    }
+
+    private static UserSession session(User user, String token, LocalDateTime expiresAt) {
+        return UserSession.builder()
+                .userId(user.getId())
+                .token(token)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.allesgut.entity.User;
 import com.allesgut.repository.UserRepository;
 import com.allesgut.repository.UserSessionRepository;
 import com.allesgut.security.JwtService;
+import com.allesgut.security.TokenRevocationRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -33,6 +34,9 @@ class AuthServiceAvatarDefaultsTests {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @InjectMocks
     private AuthService authService;
 
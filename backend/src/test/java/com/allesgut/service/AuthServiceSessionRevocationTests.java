@@ -0,0 +1,112 @@
+package com.allesgut.service;
+
+import com.allesgut.entity.User;
+import com.allesgut.repository.UserRepository;
+import com.allesgut.repository.UserSessionRepository;
+import com.allesgut.security.JwtService;
+import com.allesgut.security.TokenRevocationRegistry;
+import com.allesgut.security.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceSessionRevocationTests {
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserSessionRepository sessionRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @InjectMocks
+    private AuthService authService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(UUID.randomUUID()).phone("13800138000").nickname("Test User").build();
+    }
+
+    @Test
+    void shouldRevokeEarlierTokensOnLogin() {
+        // Given
+        when(smsService.verifyCode(anyString(), anyString())).thenReturn(true);
+        when(userRepository.findByPhone("13800138000")).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(user)).thenReturn("token");
+        when(sessionRepository.deleteByUserId(user.getId())).thenReturn(1L);
+
+        // When
+        Instant before = Instant.now();
+        authService.verifyAndLogin("13800138000", "123456");
+
+        // Then
+        verify(tokenRevocationRegistry).revoke(eq(user.getId()),
+                argThat(notBefore -> !notBefore.isAfter(before) && notBefore.getNano() == 0), eq("login"));
+    }
+
+    @Test
+    void shouldNotRevokeOnFirstLogin() {
+        // Given
+        when(smsService.verifyCode(anyString(), anyString())).thenReturn(true);
+        when(userRepository.findByPhone("13800138000")).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(user)).thenReturn("token");
+
+        // When
+        authService.verifyAndLogin("13800138000", "123456");
+
+        // Then
+        verify(tokenRevocationRegistry, never()).revoke(any(), any(), anyString());
+    }
+
+    @Test
+    void shouldRevokeTokenOnLogout() {
+        // Given
+        VerifiedToken token = new VerifiedToken(user.getId(), Instant.now(), Instant.now().plus(Duration.ofDays(30)));
+        when(jwtService.verify("token")).thenReturn(Optional.of(token));
+
+        // When
+        authService.logout("token");
+
+        // Then
+        verify(sessionRepository).deleteByToken("token");
+        verify(tokenRevocationRegistry).revoke(eq(user.getId()), any(Instant.class), eq("logout"));
+    }
+
+    @Test
+    void shouldNotRevokeNewerSessionWhenLoggingOutRevokedToken() {
+        // Given
+        VerifiedToken token = new VerifiedToken(user.getId(), Instant.now(), Instant.now().plus(Duration.ofDays(30)));
+        when(jwtService.verify("token")).thenReturn(Optional.of(token));
+        when(tokenRevocationRegistry.isRevoked(token)).thenReturn(true);
+
+        // When
+        authService.logout("token");
+
+        // Then
+        verify(tokenRevocationRegistry, never()).revoke(any(), any(), anyString());
+    }
+}
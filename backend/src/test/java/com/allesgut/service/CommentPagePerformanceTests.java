@@ -0,0 +1,147 @@
+package com.allesgut.service;
+
+import com.allesgut.LocalhostSchemaTestBase;
+import com.allesgut.dto.response.CommentDto;
+import com.allesgut.dto.response.CursorPageResponse;
+import com.allesgut.entity.Comment;
+import com.allesgut.entity.CommentLike;
+import com.allesgut.entity.CommentMention;
+import com.allesgut.entity.Post;
+import com.allesgut.entity.User;
+import com.allesgut.repository.CommentLikeRepository;
+import com.allesgut.repository.CommentMentionRepository;
+import com.allesgut.repository.CommentRepository;
+import com.allesgut.repository.PostRepository;
+import com.allesgut.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class CommentPagePerformanceTests extends LocalhostSchemaTestBase {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentLikeRepository commentLikeRepository;
+
+    @Autowired
+    private CommentMentionRepository commentMentionRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @Transactional
+    void getCommentsByPost_shouldNotExecuteNPlusOneQueries() {
+        // Arrange
+        int commentCount = 20;
+        int repliesPerComment = 3;
+
+        User author = userRepository.save(User.builder()
+                .phone(randomPhone())
+                .nickname("Perf Author")
+                .build());
+        User viewer = userRepository.save(User.builder()
+                .phone(randomPhone())
+                .nickname("Perf Viewer")
+                .build());
+
+        Post post = postRepository.save(Post.builder()
+                .userId(author.getId())
+                .title("Perf Post")
+                .content("Content")
+                .build());
+
+        for (int i = 0; i < commentCount; i++) {
+            Comment comment = commentRepository.save(Comment.builder()
+                    .postId(post.getId())
+                    .userId(author.getId())
+                    .content("Comment " + i)
+                    .replyCount(repliesPerComment)
+                    .build());
+
+            commentMentionRepository.save(CommentMention.builder()
+                    .commentId(comment.getId())
+                    .userId(viewer.getId())
+                    .build());
+            commentLikeRepository.save(CommentLike.builder()
+                    .userId(viewer.getId())
+                    .commentId(comment.getId())
+                    .build());
+
+            for (int j = 0; j < repliesPerComment; j++) {
+                commentRepository.save(Comment.builder()
+                        .postId(post.getId())
+                        .userId(viewer.getId())
+                        .parentId(comment.getId())
+                        .rootId(comment.getId())
+                        .depth(1)
+                        .content("Reply " + i + "-" + j)
+                        .build());
+            }
+        }
+
+        // Flush the arranged data so its inserts are not counted below
+        commentRepository.flush();
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics stats = sessionFactory.getStatistics();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+
+        // Act
+        CursorPageResponse<CommentDto> response = commentService.getCommentsByPost(
+                post.getId(),
+                viewer.getId(),
+                CommentSort.NEW,
+                null,
+                commentCount
+        );
+
+        // Assert
+        assertThat(response.getData()).hasSize(commentCount);
+        assertThat(response.getData()).allSatisfy(comment -> {
+            assertThat(comment.replies()).hasSize(repliesPerComment);
+            assertThat(comment.replyCount()).isEqualTo(repliesPerComment);
+        });
+
+        long preparedStatements = stats.getPrepareStatementCount();
+
+        // Baseline expectation:
+        // 1 query: top-level comments page (keyset)
+        // 1 query: reply previews for top-level comment ids (window function)
+        // 1 query: mentions for comment ids
+        // 1 query: authors and mentioned users (batched)
+        // 1 query: current like counts for comment ids
+        // 1 query: likes for (userId, commentIds)
+        // Keep a small buffer for Hibernate internal queries.
+        long maxStatements = 30;
+
+        assertThat(preparedStatements)
+                .as("Expected query count <= %s but was %s", maxStatements, preparedStatements)
+                .isLessThanOrEqualTo(maxStatements);
+    }
+
+    private static String randomPhone() {
+        return String.format("%011d", Math.floorMod(System.nanoTime(), 100_000_000_000L));
+    }
+}
@@ -2,8 +2,10 @@ package com.allesgut.service;
 
 import com.allesgut.dto.request.CreateCommentRequest;
 import com.allesgut.dto.response.CommentDto;
-import com.allesgut.dto.response.PageResponse;
+import com.allesgut.dto.response.CursorPageResponse;
+import com.allesgut.dto.response.UserDto;
 import com.allesgut.entity.Comment;
+import com.allesgut.entity.CommentLike;
 import com.allesgut.entity.Post;
 import com.allesgut.entity.User;
 import com.allesgut.repository.CommentLikeRepository;
@@ -16,11 +18,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +29,8 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +51,12 @@ class CommentServiceTests {
     @Mock
     private CommentMentionRepository commentMentionRepository;
 
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private CommentPageCache commentPageCache = new CommentPageCache();
+
     @InjectMocks
     private CommentService commentService;
 
@@ -133,6 +142,87 @@ class CommentServiceTests {
         assertThat(result).isNotNull();
         assertThat(result.parentId()).isEqualTo(parentCommentId);
         verify(commentRepository).save(any(Comment.class));
+        verify(commentRepository).adjustReplyCountOfAncestors(parentCommentId, 1);
+        verify(commentRepository, times(1)).findById(parentCommentId);
+    }
+
+    @Test
+    void shouldBatchMentionLookupsAndNotificationWrites() {
+        // Given
+        User alice = User.builder().id(UUID.randomUUID()).phone("13800138001").nickname("Alice").build();
+        User bob = User.builder().id(UUID.randomUUID()).phone("13800138002").nickname("Bob").build();
+        UUID unknownUserId = UUID.randomUUID();
+        Post otherPost = Post.builder()
+                .id(UUID.randomUUID())
+                .userId(alice.getId())
+                .title("Alice's Post")
+                .content("Content")
+                .commentsCount(0)
+                .build();
+
+        CreateCommentRequest request = new CreateCommentRequest(
+                "Hi @Alice @Bob",
+                null,
+                List.of(alice.getId(), bob.getId(), unknownUserId, bob.getId(), testUser.getId())
+        );
+
+        when(postRepository.findById(otherPost.getId())).thenReturn(Optional.of(otherPost));
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(bob, testUser, alice));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> {
+            Comment comment = invocation.getArgument(0);
+            comment.setId(UUID.randomUUID());
+            return comment;
+        });
+
+        // When
+        CommentDto result = commentService.createComment(otherPost.getId(), testUser.getId(), request);
+
+        // Then
+        assertThat(result.mentions()).extracting(UserDto::nickname).containsExactly("Alice", "Bob", "Test User");
+        verify(userRepository).findByIdIn(List.of(alice.getId(), bob.getId(), unknownUserId, testUser.getId()));
+        verify(userRepository, times(1)).findById(any(UUID.class));
+        verify(commentMentionRepository).insertMentions(result.id(),
+                List.of(alice.getId(), bob.getId(), testUser.getId()));
+        verify(commentMentionRepository, never()).save(any());
+        verify(notificationService).createNotifications(argThat((List<NotificationEvent> notifications) ->
+                notifications.size() == 3
+                        && notifications.stream().filter(n -> n.type().equals("mention")).count() == 2
+                        && notifications.stream().noneMatch(n -> n.userId().equals(testUser.getId()))));
+        verify(notificationService, never()).createNotification(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldInheritThreadRootAndDepthFromParent() {
+        // Given
+        UUID rootId = UUID.randomUUID();
+        Comment parentComment = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .parentId(rootId)
+                .rootId(rootId)
+                .depth(1)
+                .content("Nested parent")
+                .build();
+
+        CreateCommentRequest request = new CreateCommentRequest("Deep reply", parentComment.getId(), List.of());
+
+        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(testPost));
+        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
+        when(commentRepository.findById(parentComment.getId())).thenReturn(Optional.of(parentComment));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> {
+            Comment comment = invocation.getArgument(0);
+            comment.setId(UUID.randomUUID());
+            return comment;
+        });
+
+        // When
+        commentService.createComment(testPost.getId(), testUser.getId(), request);
+
+        // Then
+        verify(commentRepository).save(argThat((Comment comment) ->
+                rootId.equals(comment.getRootId()) && comment.getDepth() == 2));
     }
 
     @Test
@@ -168,17 +258,125 @@ class CommentServiceTests {
                 .content("Test comment")
                 .build();
 
-        Page<Comment> commentsPage = new PageImpl<>(List.of(comment));
-        when(commentRepository.findByPostIdOrderByCreatedAtAsc(any(UUID.class), any(Pageable.class)))
-                .thenReturn(commentsPage);
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
+        when(commentRepository.findTopLevelByPostId(any(UUID.class), anyInt()))
+                .thenReturn(List.of(comment));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
 
         // When
-        PageResponse<CommentDto> result = commentService.getCommentsByPost(testPost.getId(), null, 0, 20);
+        CursorPageResponse<CommentDto> result = commentService.getCommentsByPost(testPost.getId(), null, CommentSort.NEW, null, 20);
 
         // Then
         assertThat(result.getData()).hasSize(1);
         assertThat(result.getData().get(0).content()).isEqualTo("Test comment");
+        assertThat(result.getData().get(0).author().nickname()).isEqualTo("Test User");
+        assertThat(result.getData().get(0).replyCount()).isEqualTo(0);
+        assertThat(result.isHasMore()).isFalse();
+        assertThat(result.getNextCursor()).isNull();
+        verify(userRepository, never()).findById(any(UUID.class));
+        verify(commentLikeRepository, never()).existsByUserIdAndCommentId(any(UUID.class), any(UUID.class));
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreTopLevelCommentsExist() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Comment first = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("First")
+                .createdAt(now)
+                .build();
+        Comment second = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Second")
+                .createdAt(now.plusSeconds(1))
+                .build();
+
+        when(commentRepository.findTopLevelByPostId(testPost.getId(), 2)).thenReturn(List.of(first, second));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
+
+        // When
+        CursorPageResponse<CommentDto> firstPage = commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.NEW, null, 1);
+
+        // Then
+        assertThat(firstPage.getData()).extracting(CommentDto::content).containsExactly("First");
+        assertThat(firstPage.isHasMore()).isTrue();
+
+        // When
+        when(commentRepository.findTopLevelByPostIdAfter(testPost.getId(), now, first.getId(), 2))
+                .thenReturn(List.of(second));
+        CursorPageResponse<CommentDto> secondPage = commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.NEW, firstPage.getNextCursor(), 1);
+
+        // Then
+        assertThat(secondPage.getData()).extracting(CommentDto::content).containsExactly("Second");
+        assertThat(secondPage.isHasMore()).isFalse();
+    }
+
+    @Test
+    void shouldPageHotCommentsByLikesWithKeysetCursor() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Comment popular = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Popular")
+                .likesCount(42)
+                .createdAt(now)
+                .build();
+        Comment quiet = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Quiet")
+                .likesCount(1)
+                .createdAt(now.minusMinutes(5))
+                .build();
+
+        when(commentRepository.findHotTopLevelByPostId(testPost.getId(), 2)).thenReturn(List.of(popular, quiet));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
+
+        // When
+        CursorPageResponse<CommentDto> firstPage = commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.HOT, null, 1);
+
+        // Then
+        assertThat(firstPage.getData()).extracting(CommentDto::content).containsExactly("Popular");
+        assertThat(firstPage.isHasMore()).isTrue();
+
+        // When
+        when(commentRepository.findHotTopLevelByPostIdAfter(testPost.getId(), 42, now, popular.getId(), 2))
+                .thenReturn(List.of(quiet));
+        CursorPageResponse<CommentDto> secondPage = commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.HOT, firstPage.getNextCursor(), 1);
+
+        // Then
+        assertThat(secondPage.getData()).extracting(CommentDto::content).containsExactly("Quiet");
+        assertThat(secondPage.isHasMore()).isFalse();
+        verify(commentRepository, never()).findTopLevelByPostId(any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectCursorFromOtherSortOrder() {
+        String newCursor = new CommentCursor(LocalDateTime.now(), UUID.randomUUID()).encode();
+
+        assertThatThrownBy(() -> commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.HOT, newCursor, 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> commentService.getCommentsByPost(
+                testPost.getId(), null, CommentSort.NEW, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid cursor");
     }
 
     @Test
@@ -206,6 +404,36 @@ class CommentServiceTests {
         assertThat(testPost.getCommentsCount()).isEqualTo(0);
     }
 
+    @Test
+    void shouldDecrementCountsForCascadedReplies() {
+        // Given
+        UUID parentId = UUID.randomUUID();
+        UUID commentId = UUID.randomUUID();
+        Comment comment = Comment.builder()
+                .id(commentId)
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .parentId(parentId)
+                .rootId(parentId)
+                .depth(1)
+                .replyCount(4)
+                .content("Reply with its own replies")
+                .build();
+
+        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+        when(postRepository.findById(testPost.getId())).thenReturn(Optional.of(testPost));
+
+        testPost.setCommentsCount(10);
+
+        // When
+        commentService.deleteComment(commentId, testUser.getId());
+
+        // Then
+        verify(commentRepository).delete(comment);
+        verify(commentRepository).adjustReplyCountOfAncestors(parentId, -5);
+        assertThat(testPost.getCommentsCount()).isEqualTo(5);
+    }
+
     @Test
     void shouldThrowExceptionWhenDeletingOthersComment() {
         // Given
@@ -289,22 +517,80 @@ class CommentServiceTests {
                 .postId(testPost.getId())
                 .userId(testUser.getId())
                 .parentId(parentComment.getId())
+                .rootId(parentComment.getId())
+                .depth(1)
                 .content("Reply comment")
                 .build();
 
-        Page<Comment> commentsPage = new PageImpl<>(List.of(parentComment));
-        when(commentRepository.findByPostIdOrderByCreatedAtAsc(any(UUID.class), any(Pageable.class)))
-                .thenReturn(commentsPage);
-        when(commentRepository.findByParentIdOrderByCreatedAtAsc(parentComment.getId()))
+        when(commentRepository.findTopLevelByPostId(any(UUID.class), anyInt()))
+                .thenReturn(List.of(parentComment));
+        when(commentRepository.findReplyPreviewsByRootIds(List.of(parentComment.getId()), 3))
                 .thenReturn(List.of(replyComment));
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
 
         // When
-        PageResponse<CommentDto> result = commentService.getCommentsByPost(testPost.getId(), null, 0, 20);
+        CursorPageResponse<CommentDto> result = commentService.getCommentsByPost(testPost.getId(), null, CommentSort.NEW, null, 20);
 
         // Then
         assertThat(result.getData()).hasSize(1);
         assertThat(result.getData().get(0).replies()).hasSize(1);
         assertThat(result.getData().get(0).replies().get(0).content()).isEqualTo("Reply comment");
     }
+
+    @Test
+    void shouldServeRepeatedPageReadsFromCacheAndOverlayLikedFlags() {
+        // Given
+        UUID viewerId = UUID.randomUUID();
+        Comment comment = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Cached comment")
+                .build();
+
+        when(commentRepository.findTopLevelByPostId(testPost.getId(), 21)).thenReturn(List.of(comment));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
+        when(commentLikeRepository.findByUserIdAndCommentIdIn(viewerId, List.of(comment.getId())))
+                .thenReturn(List.of(CommentLike.builder().userId(viewerId).commentId(comment.getId()).build()));
+
+        // When
+        CursorPageResponse<CommentDto> anonymous = commentService.getCommentsByPost(testPost.getId(), null, CommentSort.NEW, null, 20);
+        CursorPageResponse<CommentDto> viewer = commentService.getCommentsByPost(testPost.getId(), viewerId, CommentSort.NEW, null, 20);
+
+        // Then
+        assertThat(anonymous.getData().get(0).isLiked()).isFalse();
+        assertThat(viewer.getData().get(0).isLiked()).isTrue();
+        verify(commentRepository, times(1)).findTopLevelByPostId(testPost.getId(), 21);
+    }
+
+    @Test
+    void shouldOverlayCurrentLikesCountOnCachedPage() {
+        // Given
+        Comment comment = Comment.builder()
+                .id(UUID.randomUUID())
+                .postId(testPost.getId())
+                .userId(testUser.getId())
+                .content("Comment")
+                .likesCount(0)
+                .build();
+
+        when(commentRepository.findTopLevelByPostId(testPost.getId(), 21)).thenReturn(List.of(comment));
+        when(userRepository.findByIdIn(anyList())).thenReturn(List.of(testUser));
+        when(commentRepository.findById(comment.getId())).thenReturn(Optional.of(comment));
+
+        commentService.getCommentsByPost(testPost.getId(), null, CommentSort.NEW, null, 20);
+
+        // When
+        commentService.likeComment(comment.getId(), testUser.getId());
+        CommentRepository.CommentLikesCountProjection likesCount = mock(CommentRepository.CommentLikesCountProjection.class);
+        when(likesCount.getId()).thenReturn(comment.getId());
+        when(likesCount.getLikesCount()).thenReturn(comment.getLikesCount());
+        when(commentRepository.findLikesCountsByIdIn(List.of(comment.getId()))).thenReturn(List.of(likesCount));
+        CursorPageResponse<CommentDto> result = commentService.getCommentsByPost(testPost.getId(), null, CommentSort.NEW, null, 20);
+
+        // Then
+        assertThat(result.getData().get(0).likesCount()).isEqualTo(1);
+        verify(commentPageCache, never()).invalidate(testPost.getId());
+        verify(commentRepository, times(1)).findTopLevelByPostId(testPost.getId(), 21);
+    }
 }
@@ -0,0 +1,193 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import com.allesgut.dto.response.PresignedUploadDto;
+import com.allesgut.entity.MediaObject;
+import com.allesgut.repository.MediaObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileUploadServiceTests {
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStorage storage;
+    private final Map<String, MediaObject> mediaObjects = new HashMap<>();
+    private FileUploadService fileUploadService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getLocal().setRoot(root.toString());
+        storage = new LocalObjectStorage(properties);
+        MediaObjectRepository mediaObjectRepository = mock(MediaObjectRepository.class);
+        when(mediaObjectRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(mediaObjects.get(invocation.<String>getArgument(0))));
+        when(mediaObjectRepository.register(anyString(), anyString(), anyLong())).thenAnswer(invocation ->
+                mediaObjects.computeIfAbsent(invocation.getArgument(0), sha256 -> MediaObject.builder()
+                        .sha256(sha256)
+                        .objectKey(invocation.getArgument(1))
+                        .size(invocation.getArgument(2))
+                        .build()).getObjectKey());
+        fileUploadService = new FileUploadService(storage, mock(ImageDerivativeService.class),
+                mediaObjectRepository, properties);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldStoreSameBytesOnce() throws IOException {
+        // Given
+        byte[] png = LocalObjectStorageTests.PNG;
+        String first = fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(png), png.length,
+                "image/png", "a.png", userId);
+
+        // When
+        String second = fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(png), png.length,
+                "image/png", "b.png", UUID.randomUUID());
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(first).endsWith("/media/" + sha256(png)).doesNotContain(userId.toString());
+        assertThat(storedFileCount()).isEqualTo(1);
+        assertThat(stagedFileCount()).isZero();
+    }
+
+    @Test
+    void shouldReuseStoredBytesWhenHashIsDeclared() throws IOException {
+        // Given
+        byte[] png = LocalObjectStorageTests.PNG;
+        String first = fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(png), png.length,
+                "image/png", "a.png", userId);
+        byte[] other = png.clone();
+        other[png.length - 1] = 'X';
+
+        // When
+        String second = fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(png), png.length,
+                "image/png", "b.png", userId, sha256(png));
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThatThrownBy(() -> fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(other),
+                other.length, "image/png", "b.png", userId, sha256(png)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fileUploadService.upload(MediaKind.IMAGE, new ByteArrayInputStream(other),
+                other.length, "image/png", "b.png", userId, sha256(new byte[] {1})))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(storedFileCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCompleteDirectUploadOfOwnObject() throws IOException {
+        // Given
+        byte[] png = LocalObjectStorageTests.PNG;
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.IMAGE, "image/png", png.length, "a.png", userId);
+        storage.put(FileUploadService.stagingKey(upload.objectKey()), new ByteArrayInputStream(png), png.length, "image/png");
+
+        // When
+        String url = fileUploadService.complete(upload.objectKey(), userId);
+
+        // Then
+        assertThat(upload.objectKey()).startsWith("images/" + userId + "/").endsWith(".png");
+        assertThat(url).endsWith(upload.objectKey());
+    }
+
+    @Test
+    void shouldNotLetUploadUrlReplaceCompletedObject() throws IOException {
+        // Given
+        byte[] png = LocalObjectStorageTests.PNG;
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.IMAGE, "image/png", png.length, "a.png", userId);
+        String stagingKey = FileUploadService.stagingKey(upload.objectKey());
+        storage.put(stagingKey, new ByteArrayInputStream(png), png.length, "image/png");
+        fileUploadService.complete(upload.objectKey(), userId);
+
+        // When: the upload URL is used again
+        byte[] other = Arrays.copyOf(png, png.length * 2);
+        storage.put(stagingKey, new ByteArrayInputStream(other), other.length, "image/png");
+
+        // Then
+        assertThatThrownBy(() -> fileUploadService.complete(upload.objectKey(), userId))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upload already completed");
+        assertThat(storage.stat(upload.objectKey())).contains(new StoredObject(png.length, "image/png"));
+        assertThat(storage.stat(stagingKey)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectAndDeleteDirectUploadWithWrongContent() throws IOException {
+        // Given
+        byte[] html = "<html><body>hello</body></html>".getBytes(StandardCharsets.UTF_8);
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.IMAGE, "image/png", html.length, "a.png", userId);
+        storage.put(FileUploadService.stagingKey(upload.objectKey()), new ByteArrayInputStream(html), html.length, "image/png");
+
+        // When/Then
+        assertThatThrownBy(() -> fileUploadService.complete(upload.objectKey(), userId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(storage.stat(upload.objectKey())).isEmpty();
+    }
+
+    @Test
+    void shouldNotCompleteAnotherUsersUpload() {
+        // Given
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.IMAGE, "image/png", 100, "a.png", userId);
+
+        // When/Then
+        assertThatThrownBy(() -> fileUploadService.complete(upload.objectKey(), UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upload not found");
+    }
+
+    @Test
+    void shouldDropUnsafeFileExtensions() {
+        // When
+        PresignedUploadDto upload = fileUploadService.presign(MediaKind.IMAGE, "image/png", 100,
+                "a.png/../../escape", userId);
+
+        // Then
+        assertThat(upload.objectKey()).doesNotContain("..");
+    }
+
+    private long storedFileCount() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("media"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private long stagedFileCount() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve(".staging"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
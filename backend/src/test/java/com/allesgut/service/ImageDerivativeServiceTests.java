@@ -0,0 +1,128 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import com.allesgut.repository.ImageDerivativeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ImageDerivativeServiceTests {
+
+    // APP1 segment with EXIF orientation 6: the image must be turned 90 degrees clockwise
+    private static final byte[] EXIF_ROTATE_90 = {
+            (byte) 0xFF, (byte) 0xE1, 0x00, 0x22, 'E', 'x', 'i', 'f', 0, 0,
+            'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+            0x00, 0x01,
+            0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, 0x06, 0x00, 0x00,
+            0x00, 0x00, 0x00, 0x00};
+
+    @TempDir
+    Path root;
+
+    private StorageProperties properties;
+    private LocalObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageProperties();
+        properties.getLocal().setRoot(root.toString());
+        storage = new LocalObjectStorage(properties);
+    }
+
+    @Test
+    void shouldMakeEveryWidthNarrowerThanOriginal() throws IOException {
+        // Given
+        byte[] png = encode(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), "png");
+        storage.put("images/user/a.png", new ByteArrayInputStream(png), png.length, "image/png");
+
+        // When
+        List<Integer> widths = service().generate("images/user/a.png");
+
+        // Then
+        assertThat(widths).containsExactly(720, 360);
+        BufferedImage derivative = read("images/user/a_w720.jpg");
+        assertThat(derivative.getWidth()).isEqualTo(720);
+        assertThat(derivative.getHeight()).isEqualTo(360);
+    }
+
+    @Test
+    void shouldDecodeLargeImageSubsampledToLargestWidth() throws IOException {
+        // Given
+        byte[] png = encode(new BufferedImage(4000, 2000, BufferedImage.TYPE_INT_RGB), "png");
+        storage.put("images/user/large.png", new ByteArrayInputStream(png), png.length, "image/png");
+
+        // When
+        ImageResizer.Decoded decoded;
+        try (InputStream in = storage.open("images/user/large.png")) {
+            decoded = ImageResizer.decode(in, Long.MAX_VALUE, 1080, false);
+        }
+        List<Integer> widths = service().generate("images/user/large.png");
+
+        // Then
+        assertThat(decoded.sourceWidth()).isEqualTo(4000);
+        assertThat(decoded.image().getWidth()).isEqualTo(1334);
+        assertThat(widths).containsExactly(1080, 720, 360);
+        BufferedImage derivative = read("images/user/large_w1080.jpg");
+        assertThat(derivative.getWidth()).isEqualTo(1080);
+        assertThat(derivative.getHeight()).isEqualTo(540);
+    }
+
+    @Test
+    void shouldTurnImageUprightAndDropExif() throws IOException {
+        // Given
+        byte[] jpeg = withExif(encode(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "jpeg"));
+        storage.put("images/user/a.jpg", new ByteArrayInputStream(jpeg), jpeg.length, "image/jpeg");
+        properties.getDerivatives().setWidths(List.of(80));
+
+        // When
+        List<Integer> widths = service().generate("images/user/a.jpg");
+
+        // Then
+        assertThat(ImageResizer.orientation(jpeg)).isEqualTo(6);
+        assertThat(widths).containsExactly(80);
+        BufferedImage derivative = read("images/user/a_w80.jpg");
+        assertThat(derivative.getWidth()).isEqualTo(80);
+        assertThat(derivative.getHeight()).isEqualTo(160);
+        try (InputStream in = storage.open("images/user/a_w80.jpg")) {
+            assertThat(ImageResizer.orientation(in.readAllBytes())).isEqualTo(1);
+        }
+    }
+
+    private ImageDerivativeService service() {
+        return new ImageDerivativeService(storage, mock(ImageDerivativeRepository.class), properties);
+    }
+
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream in = storage.open(key)) {
+            return ImageIO.read(in);
+        }
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    // Inserts the EXIF segment after the JFIF segment that ImageIO writes first
+    private static byte[] withExif(byte[] jpeg) {
+        int offset = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        byte[] result = new byte[jpeg.length + EXIF_ROTATE_90.length];
+        System.arraycopy(jpeg, 0, result, 0, offset);
+        System.arraycopy(EXIF_ROTATE_90, 0, result, offset, EXIF_ROTATE_90.length);
+        System.arraycopy(jpeg, offset, result, offset + EXIF_ROTATE_90.length, jpeg.length - offset);
+        return result;
+    }
+}
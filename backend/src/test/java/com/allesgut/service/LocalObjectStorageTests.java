@@ -0,0 +1,100 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalObjectStorageTests {
+
+    static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getLocal().setRoot(root.toString());
+        properties.getLocal().setSigningSecret("test-signing-secret");
+        storage = new LocalObjectStorage(properties);
+    }
+
+    @Test
+    void shouldStoreAndStatObject() throws IOException {
+        // When
+        storage.put("images/user/a.png", new ByteArrayInputStream(PNG), PNG.length, "image/png");
+
+        // Then
+        assertThat(storage.stat("images/user/a.png")).contains(new StoredObject(PNG.length, "image/png"));
+        assertThat(storage.stat("images/user/missing.png")).isEmpty();
+    }
+
+    @Test
+    void shouldAcceptOnlyUnmodifiedUnexpiredUploadUrls() {
+        // Given
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        Map<String, String> query = query(storage.presignPut("images/user/a.png", "image/png", 1024, expiresAt));
+
+        // When/Then
+        assertThat(storage.verifyPut("images/user/a.png", "image/png", 1024,
+                expiresAt.getEpochSecond(), query.get("signature"))).isTrue();
+        assertThat(storage.verifyPut("images/user/a.png", "image/png", 1024 * 1024,
+                expiresAt.getEpochSecond(), query.get("signature"))).isFalse();
+        assertThat(storage.verifyPut("images/other/a.png", "image/png", 1024,
+                expiresAt.getEpochSecond(), query.get("signature"))).isFalse();
+        assertThat(storage.verifyPut("images/user/a.png", "image/png", 1024,
+                Instant.now().minusSeconds(1).getEpochSecond(), query.get("signature"))).isFalse();
+    }
+
+    @Test
+    void shouldExpireOnlyOldObjectsUnderPrefix() throws IOException {
+        // Given
+        storage.put(".staging/images/user/old.png", new ByteArrayInputStream(PNG), PNG.length, "image/png");
+        storage.put(".staging/images/user/new.png", new ByteArrayInputStream(PNG), PNG.length, "image/png");
+        storage.put("images/user/old.png", new ByteArrayInputStream(PNG), PNG.length, "image/png");
+        FileTime hourAgo = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(storage.resolve(".staging/images/user/old.png"), hourAgo);
+        Files.setLastModifiedTime(storage.resolve("images/user/old.png"), hourAgo);
+
+        // When
+        storage.expire(".staging/", Duration.ofMinutes(15));
+
+        // Then
+        assertThat(Files.exists(storage.resolve(".staging/images/user/old.png"))).isFalse();
+        assertThat(Files.exists(storage.resolve(".staging/images/user/new.png"))).isTrue();
+        assertThat(storage.stat("images/user/old.png")).isPresent();
+    }
+
+    @Test
+    void shouldRejectKeysOutsideRoot() {
+        // When/Then
+        assertThatThrownBy(() -> storage.resolve("../outside.png"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<String, String> query(String url) {
+        Map<String, String> query = new HashMap<>();
+        for (String pair : URI.create(url).getRawQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            query.put(parts[0], parts[1]);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,45 @@
+package com.allesgut.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaSnifferTests {
+
+    @Test
+    void shouldDetectImagesFromSignature() {
+        // Given
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1};
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D};
+
+        // When/Then
+        assertThat(MediaSniffer.detect(jpeg)).isEqualTo("image/jpeg");
+        assertThat(MediaSniffer.detect(png)).isEqualTo("image/png");
+    }
+
+    @Test
+    void shouldDetectVideoContainers() {
+        // Given
+        byte[] mp4 = "\0\0\0\u0018ftypisom".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] mov = "\0\0\0\u0014ftypqt  ".getBytes(StandardCharsets.ISO_8859_1);
+
+        // When/Then
+        assertThat(MediaSniffer.detect(mp4)).isEqualTo("video/mp4");
+        assertThat(MediaSniffer.detect(mov)).isEqualTo("video/quicktime");
+    }
+
+    @Test
+    void shouldRejectContentNotMatchingDeclaredType() {
+        // Given
+        byte[] html = "<html><body>".getBytes(StandardCharsets.ISO_8859_1);
+
+        // When/Then
+        assertThat(MediaSniffer.detect(html)).isNull();
+        assertThat(MediaSniffer.matches("image/png", MediaSniffer.detect(html))).isFalse();
+        assertThat(MediaSniffer.matches("image/png", "image/jpeg")).isFalse();
+        assertThat(MediaSniffer.matches("image/jpg", "image/jpeg")).isTrue();
+        assertThat(MediaSniffer.matches("video/quicktime", "video/mp4")).isTrue();
+    }
+}
@@ -0,0 +1,154 @@
+package com.allesgut.service;
+
+import com.allesgut.config.StorageProperties;
+import com.allesgut.dto.response.MultipartUploadDto;
+import com.allesgut.entity.MultipartUpload;
+import com.allesgut.entity.MultipartUploadPart;
+import com.allesgut.repository.MediaObjectRepository;
+import com.allesgut.repository.MultipartUploadPartRepository;
+import com.allesgut.repository.MultipartUploadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MultipartUploadServiceTests {
+
+    private static final int PART_SIZE = 8;
+
+    @TempDir
+    Path root;
+
+    private final Map<UUID, MultipartUpload> uploads = new ConcurrentHashMap<>();
+    private final Map<Integer, MultipartUploadPart> parts = new ConcurrentHashMap<>();
+    private MultipartUploadService multipartUploadService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getLocal().setRoot(root.toString());
+        properties.getMultipart().setPartSize(PART_SIZE);
+        properties.getMultipart().setWorkers(2);
+        LocalObjectStorage storage = new LocalObjectStorage(properties);
+
+        MultipartUploadRepository uploadRepository = mock(MultipartUploadRepository.class);
+        when(uploadRepository.save(any(MultipartUpload.class))).thenAnswer(invocation -> {
+            MultipartUpload upload = invocation.getArgument(0);
+            upload.setId(UUID.randomUUID());
+            uploads.put(upload.getId(), upload);
+            return upload;
+        });
+        when(uploadRepository.findById(any(UUID.class)))
+                .thenAnswer(invocation -> Optional.ofNullable(uploads.get(invocation.<UUID>getArgument(0))));
+        doAnswer(invocation -> uploads.remove(invocation.<MultipartUpload>getArgument(0).getId()))
+                .when(uploadRepository).delete(any(MultipartUpload.class));
+
+        MultipartUploadPartRepository partRepository = mock(MultipartUploadPartRepository.class);
+        doAnswer(invocation -> parts.put(invocation.getArgument(1), new MultipartUploadPart(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.getArgument(3))))
+                .when(partRepository).upsert(any(UUID.class), anyInt(), anyString(), anyLong());
+        when(partRepository.findByUploadIdOrderByPartNumber(any(UUID.class))).thenAnswer(invocation ->
+                parts.values().stream().sorted(Comparator.comparingInt(MultipartUploadPart::getPartNumber)).toList());
+
+        FileUploadService fileUploadService = new FileUploadService(storage, mock(ImageDerivativeService.class),
+                mock(MediaObjectRepository.class), properties);
+        multipartUploadService = new MultipartUploadService(storage, fileUploadService,
+                uploadRepository, partRepository, properties);
+        multipartUploadService.start();
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        multipartUploadService.stop();
+    }
+
+    @Test
+    void shouldAssemblePartsSentOutOfOrderAndResumed() throws Exception {
+        // Given
+        byte[] png = Arrays.copyOf(LocalObjectStorageTests.PNG, 20);
+        MultipartUploadDto upload = multipartUploadService.initiate(MediaKind.IMAGE, "image/png", png.length,
+                "a.png", userId);
+        CompletableFuture.allOf(
+                uploadPart(upload, 3, png),
+                uploadPart(upload, 1, png)).get();
+
+        // When
+        MultipartUploadDto resumed = multipartUploadService.status(upload.uploadId(), userId);
+        uploadPart(upload, 2, png).get();
+        String url = multipartUploadService.complete(upload.uploadId(), userId);
+
+        // Then
+        assertThat(upload.partCount()).isEqualTo(3);
+        assertThat(resumed.uploadedParts()).containsExactly(1, 3);
+        assertThat(url).endsWith(upload.objectKey());
+        assertThat(Files.readAllBytes(root.resolve(upload.objectKey()))).isEqualTo(png);
+        assertThat(uploads).isEmpty();
+    }
+
+    @Test
+    void shouldRejectPartsOfWrongSizeAndIncompleteUploads() {
+        // Given
+        byte[] png = Arrays.copyOf(LocalObjectStorageTests.PNG, 20);
+        MultipartUploadDto upload = multipartUploadService.initiate(MediaKind.IMAGE, "image/png", png.length,
+                "a.png", userId);
+
+        // When/Then
+        assertThatThrownBy(() -> multipartUploadService.uploadPart(upload.uploadId(), 3,
+                new ByteArrayInputStream(png), PART_SIZE, userId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> multipartUploadService.uploadPart(upload.uploadId(), 4,
+                new ByteArrayInputStream(png), 4, userId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> multipartUploadService.complete(upload.uploadId(), userId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> multipartUploadService.status(upload.uploadId(), UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFailPartWhoseBodyEndsEarly() {
+        // Given
+        byte[] png = Arrays.copyOf(LocalObjectStorageTests.PNG, 20);
+        MultipartUploadDto upload = multipartUploadService.initiate(MediaKind.IMAGE, "image/png", png.length,
+                "a.png", userId);
+
+        // When
+        CompletableFuture<Integer> part = multipartUploadService.uploadPart(upload.uploadId(), 1,
+                new ByteArrayInputStream(png, 0, PART_SIZE - 1), PART_SIZE, userId);
+
+        // Then
+        assertThat(part).isCompletedExceptionally();
+        assertThat(parts).isEmpty();
+    }
+
+    private CompletableFuture<Integer> uploadPart(MultipartUploadDto upload, int partNumber, byte[] content) {
+        int from = (partNumber - 1) * PART_SIZE;
+        int to = Math.min(from + PART_SIZE, content.length);
+        return multipartUploadService.uploadPart(upload.uploadId(), partNumber,
+                new ByteArrayInputStream(content, from, to - from), to - from, userId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.allesgut.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDeduplicatorTests {
+
+    private final UUID recipientId = UUID.randomUUID();
+    private final UUID actorId = UUID.randomUUID();
+    private final UUID postId = UUID.randomUUID();
+
+    @Test
+    void shouldDropRepeatedEventWithinWindow() {
+        // Given
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(Duration.ofMinutes(10), 100);
+        long now = 0;
+
+        // When/Then
+        assertThat(deduplicator.accept(like(actorId), now)).isTrue();
+        assertThat(deduplicator.accept(like(actorId), now + Duration.ofMinutes(5).toNanos())).isFalse();
+        assertThat(deduplicator.accept(like(UUID.randomUUID()), now + Duration.ofMinutes(5).toNanos())).isTrue();
+        assertThat(deduplicator.accept(like(actorId), now + Duration.ofMinutes(11).toNanos())).isTrue();
+    }
+
+    @Test
+    void shouldForgetOldestKeysBeyondCapacity() {
+        // Given
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(Duration.ofMinutes(10), 2);
+        deduplicator.accept(like(actorId), 0);
+        deduplicator.accept(like(UUID.randomUUID()), 1);
+        deduplicator.accept(like(UUID.randomUUID()), 2);
+
+        // When/Then
+        assertThat(deduplicator.accept(like(actorId), 3)).isTrue();
+    }
+
+    private NotificationEvent like(UUID actor) {
+        return NotificationEvent.of(recipientId, NotificationTemplate.POST_LIKE, actor, postId);
+    }
+}
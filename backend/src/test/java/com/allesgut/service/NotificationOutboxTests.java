@@ -0,0 +1,117 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationOutboxTests {
+
+    @TempDir
+    private Path directory;
+
+    private NotificationProperties properties;
+    private ObjectMapper objectMapper;
+    private NotificationOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getWriter().setOutboxDirectory(directory.toString());
+        properties.getWriter().setSegmentSize(2);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        outbox = new NotificationOutbox(properties, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    void shouldReplayUnacknowledgedEventsAfterRestart() {
+        // Given
+        assertThat(outbox.open()).isEmpty();
+        NotificationEvent written = event();
+        NotificationEvent pending = event();
+        long writtenSegment = outbox.append(written);
+        outbox.append(pending);
+        outbox.acknowledge(writtenSegment, 1);
+
+        // When: the process stops before the second event is acknowledged
+        outbox.close();
+        outbox = new NotificationOutbox(properties, objectMapper);
+        List<NotificationOutbox.Entry> recovered = outbox.open();
+
+        // Then
+        assertThat(recovered).extracting(NotificationOutbox.Entry::event).containsExactly(written, pending);
+    }
+
+    @Test
+    void shouldDeleteRotatedSegmentsOnceFullyAcknowledged() throws IOException {
+        // Given
+        outbox.open();
+        long firstSegment = outbox.append(event());
+        outbox.append(event());
+        long secondSegment = outbox.append(event());
+
+        // When
+        outbox.acknowledge(firstSegment, 2);
+
+        // Then
+        assertThat(secondSegment).isGreaterThan(firstSegment);
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void shouldKeepSyncedEventsAcrossRotation() {
+        // Given
+        outbox.open();
+        NotificationEvent first = event();
+        NotificationEvent second = event();
+        NotificationEvent third = event();
+        outbox.append(first);
+        outbox.append(second);
+        outbox.append(third);
+
+        // When
+        outbox.sync();
+        outbox.close();
+        outbox = new NotificationOutbox(properties, objectMapper);
+
+        // Then
+        assertThat(outbox.open()).extracting(NotificationOutbox.Entry::event).containsExactly(first, second, third);
+    }
+
+    @Test
+    void shouldRefuseDirectoryLockedByAnotherOutbox() {
+        // Given
+        outbox.open();
+        NotificationOutbox other = new NotificationOutbox(properties, objectMapper);
+
+        // When/Then
+        assertThatThrownBy(other::open).isInstanceOf(IllegalStateException.class);
+    }
+
+    private NotificationEvent event() {
+        return NotificationEvent.of(UUID.randomUUID(), NotificationTemplate.POST_LIKE, UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).toList();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.allesgut.service;
+
+import com.allesgut.LocalhostSchemaTestBase;
+import com.allesgut.entity.Notification;
+import com.allesgut.entity.User;
+import com.allesgut.repository.NotificationRepository;
+import com.allesgut.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class NotificationPartitionMaintainerTests extends LocalhostSchemaTestBase {
+
+    @Autowired
+    private NotificationPartitionMaintainer maintainer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldMoveExistingRowsIntoPartitionedTable() {
+        // Given
+        User user = userRepository.save(User.builder().phone("13900139000").nickname("Partitioned").build());
+        Notification notification = notificationRepository.save(Notification.builder()
+                .userId(user.getId())
+                .type("follow")
+                .template("FOLLOW")
+                .actorId(user.getId())
+                .build());
+
+        // When: one batch per run until the tables are swapped
+        for (int run = 0; run < 100 && !migrated(); run++) {
+            maintainer.migrate();
+        }
+
+        // Then
+        assertThat(migrated()).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "select relkind::text from pg_class where oid = cast('notifications' as regclass)", String.class))
+                .isEqualTo("p");
+        assertThat(notificationRepository.findById(notification.getId())).isPresent();
+    }
+
+    @Test
+    void shouldCreateUpcomingMonthlyPartitions() {
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        String upcoming = "notifications_" + YearMonth.now().plusMonths(3)
+                .format(DateTimeFormatter.ofPattern("'y'uuuu'm'MM"));
+        assertThat(jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, upcoming))
+                .isTrue();
+    }
+
+    @Test
+    void shouldNotKeepRowsOlderThanRetention() {
+        // Given: a row of a month long past retention, which has no partition
+        User user = userRepository.save(User.builder().phone("13900139001").nickname("Expired").build());
+        UUID expired = insertNotification(user.getId(), LocalDateTime.now().minusMonths(15));
+        UUID recent = insertNotification(user.getId(), LocalDateTime.now());
+
+        // When
+        for (int run = 0; run < 100 && !migrated(); run++) {
+            maintainer.migrate();
+        }
+        maintainer.maintainPartitions();
+
+        // Then
+        assertThat(notificationRepository.findById(expired)).isEmpty();
+        assertThat(notificationRepository.findById(recent)).isPresent();
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from notifications_default where created_at < ?", Long.class,
+                LocalDateTime.now().minusMonths(12))).isZero();
+    }
+
+    private UUID insertNotification(UUID userId, LocalDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into notifications (id, user_id, type, template, actor_id, actor_count, " +
+                "is_read, created_at, updated_at) values (?, ?, 'follow', 'FOLLOW', ?, 1, false, ?, ?)",
+                id, userId, userId, createdAt, createdAt);
+        return id;
+    }
+
+    private boolean migrated() {
+        return jdbcTemplate.queryForObject(
+                "select completed_at is not null from notification_partition_migration", Boolean.class);
+    }
+}
@@ -0,0 +1,267 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.dto.response.NotificationDto;
+import com.allesgut.dto.response.PageResponse;
+import com.allesgut.dto.response.PublicUserDto;
+import com.allesgut.entity.Notification;
+import com.allesgut.entity.NotificationState;
+import com.allesgut.repository.NotificationRepository;
+import com.allesgut.repository.NotificationStateRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTests {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private NotificationStateRepository notificationStateRepository;
+
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+
+    @Mock
+    private ActorCache actorCache;
+
+    @Spy
+    private NotificationProperties properties = new NotificationProperties();
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    void shouldPublishEventInsteadOfWritingNotification() {
+        // When
+        notificationService.createNotification(UUID.randomUUID(), NotificationTemplate.FOLLOW, UUID.randomUUID(), null);
+
+        // Then
+        verify(eventPublisher).publishEvent(any(NotificationEvent.class));
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void shouldRenderAggregatedNotificationWithRecentActorsAndCount() {
+        // Given
+        UUID recipientId = UUID.randomUUID();
+        PublicUserDto alice = new PublicUserDto(UUID.randomUUID(), "Alice", null);
+        PublicUserDto bob = new PublicUserDto(UUID.randomUUID(), "Bob", null);
+        Notification aggregated = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(recipientId)
+                .type("like")
+                .actorId(bob.id())
+                .actorCount(40)
+                .recentActorIds(new UUID[]{bob.id(), alice.id()})
+                .relatedId(UUID.randomUUID())
+                .template("POST_LIKE")
+                .build();
+        Notification single = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(recipientId)
+                .type("follow")
+                .actorId(alice.id())
+                .recentActorIds(new UUID[]{alice.id()})
+                .template("FOLLOW")
+                .build();
+
+        when(notificationRepository.findRecentByUserId(
+                eq(recipientId), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(aggregated, single)));
+        when(actorCache.getAll(anySet())).thenReturn(Map.of(alice.id(), alice, bob.id(), bob));
+
+        // When
+        PageResponse<NotificationDto> result = notificationService.getNotifications(recipientId, 0, 20);
+
+        // Then
+        assertThat(result.getData()).extracting(NotificationDto::content)
+                .containsExactly("Bob, Alice and 38 others liked your post", "Alice started following you");
+        assertThat(result.getData().get(0).actorCount()).isEqualTo(40);
+        assertThat(result.getData().get(1).actor()).isEqualTo(alice);
+        verify(actorCache, times(1)).getAll(anySet());
+    }
+
+    @Test
+    void shouldRenderWithCurrentNicknameAndFallBackForDeletedActors() {
+        // Given
+        UUID recipientId = UUID.randomUUID();
+        PublicUserDto renamed = new PublicUserDto(UUID.randomUUID(), "Alice Renamed", null);
+        Notification byRenamed = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(recipientId)
+                .type("comment")
+                .actorId(renamed.id())
+                .template("POST_COMMENT")
+                .build();
+        Notification byDeleted = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(recipientId)
+                .type("follow")
+                .actorId(UUID.randomUUID())
+                .template("FOLLOW")
+                .build();
+        Notification legacy = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(recipientId)
+                .type("system")
+                .content("Welcome to Allesgut")
+                .build();
+
+        when(notificationRepository.findRecentByUserId(
+                eq(recipientId), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(byRenamed, byDeleted, legacy)));
+        when(actorCache.getAll(anySet())).thenReturn(Map.of(renamed.id(), renamed));
+
+        // When
+        PageResponse<NotificationDto> result = notificationService.getNotifications(recipientId, 0, 20);
+
+        // Then
+        assertThat(result.getData()).extracting(NotificationDto::content).containsExactly(
+                "Alice Renamed commented on your post", "Someone started following you", "Welcome to Allesgut");
+        assertThat(result.getData().get(1).actor()).isNull();
+    }
+
+    @Test
+    void shouldServeUnreadCountFromCounter() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(unreadCounter.get(userId)).thenReturn(7L);
+
+        // When
+        long count = notificationService.getUnreadCount(userId);
+
+        // Then
+        assertThat(count).isEqualTo(7);
+        verify(notificationRepository, never()).countByUserIdAndIsRead(any(), anyBoolean());
+    }
+
+    @Test
+    void shouldMarkAsReadWithSingleConditionalUpdate() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UUID notificationId = UUID.randomUUID();
+        when(notificationRepository.markAsRead(eq(notificationId), eq(userId), any(LocalDateTime.class))).thenReturn(1);
+
+        // When
+        notificationService.markAsRead(notificationId, userId);
+
+        // Then
+        verify(notificationStateRepository).adjustUnreadCount(userId, -1);
+        verify(unreadCounter).invalidate(userId);
+        verify(notificationRepository, never()).findByIdAndCreatedAtAfter(any(), any());
+    }
+
+    @Test
+    void shouldLeaveCountAloneWhenNotificationWasAlreadyRead() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        Notification read = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .type("comment")
+                .content("Alice commented on your post")
+                .isRead(true)
+                .build();
+        when(notificationRepository.markAsRead(eq(read.getId()), eq(userId), any(LocalDateTime.class))).thenReturn(0);
+        when(notificationRepository.findByIdAndCreatedAtAfter(eq(read.getId()), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(read));
+
+        // When
+        notificationService.markAsRead(read.getId(), userId);
+
+        // Then
+        verify(notificationStateRepository, never()).adjustUnreadCount(any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectMarkingSomeoneElsesNotification() {
+        // Given
+        Notification foreign = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .type("comment")
+                .content("Alice commented on your post")
+                .build();
+        when(notificationRepository.findByIdAndCreatedAtAfter(eq(foreign.getId()), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(foreign));
+
+        // When/Then
+        assertThatThrownBy(() -> notificationService.markAsRead(foreign.getId(), UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Not authorized");
+    }
+
+    @Test
+    void shouldMarkAllAsReadByMovingWatermark() {
+        // Given
+        UUID userId = UUID.randomUUID();
+
+        // When
+        notificationService.markAllAsRead(userId);
+
+        // Then
+        verify(notificationStateRepository).markAllAsRead(eq(userId), any(LocalDateTime.class));
+        verify(unreadCounter).invalidate(userId);
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void shouldDeriveReadStateFromWatermark() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        LocalDateTime lastReadAt = LocalDateTime.now().minusHours(1);
+        Notification before = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .type("comment")
+                .content("Older")
+                .updatedAt(lastReadAt.minusMinutes(1))
+                .build();
+        Notification after = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .type("comment")
+                .content("Newer")
+                .updatedAt(lastReadAt.plusMinutes(1))
+                .build();
+
+        when(notificationRepository.findRecentByUserId(
+                eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(after, before)));
+        when(notificationStateRepository.findById(userId))
+                .thenReturn(Optional.of(NotificationState.builder().userId(userId).lastReadAt(lastReadAt).build()));
+
+        // When
+        PageResponse<NotificationDto> result = notificationService.getNotifications(userId, 0, 20);
+
+        // Then
+        assertThat(result.getData()).extracting(NotificationDto::isRead).containsExactly(false, true);
+    }
+}
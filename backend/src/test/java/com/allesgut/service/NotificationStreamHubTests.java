@@ -0,0 +1,95 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.exception.TooManyConnectionsException;
+import com.allesgut.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStreamHubTests {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private NotificationProperties properties;
+    private NotificationStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getStream().setMaxConnections(2);
+        properties.getStream().setMaxConnectionsPerUser(1);
+        hub = new NotificationStreamHub(notificationRepository, notificationService, properties);
+        hub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    void shouldRefuseStreamsAboveTheNodeCap() {
+        // Given
+        hub.subscribe(UUID.randomUUID(), null);
+        hub.subscribe(UUID.randomUUID(), null);
+
+        // When/Then
+        assertThatThrownBy(() -> hub.subscribe(UUID.randomUUID(), null))
+                .isInstanceOf(TooManyConnectionsException.class);
+        assertThat(hub.connectionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCloseOldestStreamOfUserAboveTheUserCap() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        hub.subscribe(userId, null);
+
+        // When
+        hub.subscribe(userId, null);
+
+        // Then
+        assertThat(hub.connectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReplayNotificationsAfterLastEventId() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        NotificationStreamCursor lastSeen = new NotificationStreamCursor(42);
+        when(notificationRepository.findWrittenAfter(userId, 42, 100))
+                .thenReturn(List.of());
+
+        // When
+        hub.subscribe(userId, lastSeen.encode());
+
+        // Then
+        verify(notificationRepository).findWrittenAfter(userId, 42, 100);
+    }
+
+    @Test
+    void shouldRejectMalformedLastEventId() {
+        // When/Then
+        assertThatThrownBy(() -> hub.subscribe(UUID.randomUUID(), "not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(notificationRepository, never()).findWrittenAfter(any(), anyLong(), anyInt());
+        assertThat(hub.connectionCount()).isZero();
+    }
+}
@@ -0,0 +1,216 @@
+package com.allesgut.service;
+
+import com.allesgut.LocalhostSchemaTestBase;
+import com.allesgut.entity.Notification;
+import com.allesgut.entity.NotificationState;
+import com.allesgut.entity.User;
+import com.allesgut.repository.NotificationRepository;
+import com.allesgut.repository.NotificationStateRepository;
+import com.allesgut.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class NotificationWriterTests extends LocalhostSchemaTestBase {
+
+    @Autowired
+    private NotificationWriter notificationWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationStateRepository notificationStateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private NotificationStreamHub streamHub;
+
+    private User creator;
+
+    @BeforeEach
+    void setUp() {
+        creator = saveUser("Creator");
+    }
+
+    @Test
+    void shouldFoldLikesOfSamePostIntoOneRow() {
+        // Given
+        UUID postId = UUID.randomUUID();
+        User alice = saveUser("Alice");
+        User bob = saveUser("Bob");
+        User carol = saveUser("Carol");
+
+        // When: one like in a first batch, two more in a later batch
+        notificationWriter.write(List.of(entry(like(alice, postId))));
+        notificationWriter.write(List.of(entry(like(bob, postId)), entry(like(carol, postId))));
+
+        // Then
+        List<Notification> notifications = notificationRepository
+                .findRecentByUserId(creator.getId(), LocalDateTime.now().minusDays(1),
+                        LocalDateTime.now().minusDays(2), PageRequest.of(0, 10))
+                .getContent();
+        assertThat(notifications).hasSize(1);
+        Notification notification = notifications.get(0);
+        assertThat(notification.getActorCount()).isEqualTo(3);
+        assertThat(notification.getActorId()).isEqualTo(carol.getId());
+        assertThat(notification.getRecentActorIds()).containsExactly(carol.getId(), bob.getId(), alice.getId());
+        assertThat(notification.getTemplate()).isEqualTo("POST_LIKE");
+        assertThat(notification.getContent()).isNull();
+        assertThat(notificationStateRepository.findUnreadCount(creator.getId())).contains(1);
+    }
+
+    @Test
+    void shouldCountEachActorOnce() {
+        // Given
+        UUID postId = UUID.randomUUID();
+        User alice = saveUser("Alice");
+        User bob = saveUser("Bob");
+        notificationWriter.write(List.of(entry(like(alice, postId)), entry(like(alice, postId))));
+
+        // When: Alice again, now folded into the existing row, and Bob
+        notificationWriter.write(List.of(entry(like(alice, postId)), entry(like(bob, postId))));
+
+        // Then
+        Notification notification = notificationRepository
+                .findRecentByUserId(creator.getId(), LocalDateTime.now().minusDays(1),
+                        LocalDateTime.now().minusDays(2), PageRequest.of(0, 10))
+                .getContent().get(0);
+        assertThat(notification.getActorCount()).isEqualTo(2);
+        assertThat(notification.getRecentActorIds()).containsExactly(bob.getId(), alice.getId());
+    }
+
+    @Test
+    void shouldCountReopenedGroupAsUnreadAgain() {
+        // Given
+        UUID postId = UUID.randomUUID();
+        notificationWriter.write(List.of(entry(like(saveUser("Alice"), postId))));
+        Notification notification = notificationRepository
+                .findRecentByUserId(creator.getId(), LocalDateTime.now().minusDays(1),
+                        LocalDateTime.now().minusDays(2), PageRequest.of(0, 1))
+                .getContent().get(0);
+        notification.setRead(true);
+        notificationRepository.save(notification);
+        notificationStateRepository.save(NotificationState.builder().userId(creator.getId()).unreadCount(0).build());
+
+        // When
+        notificationWriter.write(List.of(entry(like(saveUser("Bob"), postId))));
+
+        // Then
+        assertThat(notificationRepository.countByUserIdAndIsRead(creator.getId(), false)).isEqualTo(1);
+        assertThat(notificationStateRepository.findUnreadCount(creator.getId())).contains(1);
+    }
+
+    @Test
+    void shouldKeepCommentNotificationsSeparate() {
+        // Given
+        User alice = saveUser("Alice");
+
+        // When
+        notificationWriter.write(List.of(
+                entry(NotificationEvent.of(creator.getId(), NotificationTemplate.POST_COMMENT, alice.getId(),
+                        UUID.randomUUID())),
+                entry(NotificationEvent.of(creator.getId(), NotificationTemplate.POST_COMMENT, alice.getId(),
+                        UUID.randomUUID()))
+        ));
+
+        // Then
+        assertThat(notificationRepository.countByUserIdAndIsRead(creator.getId(), false)).isEqualTo(2);
+        assertThat(notificationStateRepository.findUnreadCount(creator.getId())).contains(2);
+    }
+
+    @Test
+    void shouldReopenGroupCoveredByReadWatermark() {
+        // Given
+        UUID postId = UUID.randomUUID();
+        notificationWriter.write(List.of(entry(like(saveUser("Alice"), postId))));
+        notificationStateRepository.save(NotificationState.builder()
+                .userId(creator.getId())
+                .unreadCount(0)
+                .lastReadAt(LocalDateTime.now().plusSeconds(1))
+                .build());
+
+        // When
+        notificationWriter.write(List.of(entry(new NotificationEvent(UUID.randomUUID(), creator.getId(), "like",
+                saveUser("Bob").getId(), postId, "POST_LIKE", null, LocalDateTime.now().plusSeconds(2)))));
+
+        // Then
+        assertThat(notificationRepository.countByUserIdAndIsRead(creator.getId(), false)).isEqualTo(1);
+        assertThat(notificationStateRepository.findUnreadCount(creator.getId())).contains(1);
+    }
+
+    @Test
+    void shouldNotCountNotificationWrittenAfterMarkAllAsRead() {
+        // Given: created before the user marked everything as read, written after
+        NotificationEvent comment = NotificationEvent.of(creator.getId(), NotificationTemplate.POST_COMMENT,
+                saveUser("Alice").getId(), UUID.randomUUID());
+        notificationStateRepository.save(NotificationState.builder()
+                .userId(creator.getId())
+                .unreadCount(0)
+                .lastReadAt(LocalDateTime.now().plusSeconds(1))
+                .build());
+
+        // When
+        notificationWriter.write(List.of(entry(comment)));
+
+        // Then
+        assertThat(notificationRepository.countByUserIdAndIsRead(creator.getId(), false)).isEqualTo(1);
+        assertThat(notificationStateRepository.findUnreadCount(creator.getId())).contains(0);
+    }
+
+    @Test
+    void shouldStreamFoldedRowAsStored() {
+        // Given
+        UUID postId = UUID.randomUUID();
+        User alice = saveUser("Alice");
+        User bob = saveUser("Bob");
+        notificationWriter.write(List.of(entry(like(alice, postId))));
+
+        // When
+        notificationWriter.write(List.of(entry(like(bob, postId))));
+
+        // Then: both pushes carry the id of the one stored row, the second one with both actors
+        Notification stored = notificationRepository
+                .findRecentByUserId(creator.getId(), LocalDateTime.now().minusDays(1),
+                        LocalDateTime.now().minusDays(2), PageRequest.of(0, 10))
+                .getContent().get(0);
+        ArgumentCaptor<Notification> published = ArgumentCaptor.forClass(Notification.class);
+        verify(streamHub, times(2)).publish(published.capture());
+        assertThat(published.getAllValues()).extracting(Notification::getId).containsOnly(stored.getId());
+        Notification folded = published.getAllValues().get(1);
+        assertThat(folded.getActorCount()).isEqualTo(2);
+        assertThat(folded.getRecentActorIds()).containsExactly(bob.getId(), alice.getId());
+        assertThat(folded.isRead()).isFalse();
+        assertThat(folded.getWriteSeq()).isGreaterThan(published.getAllValues().get(0).getWriteSeq());
+    }
+
+    private NotificationEvent like(User actor, UUID postId) {
+        return NotificationEvent.of(creator.getId(), NotificationTemplate.POST_LIKE, actor.getId(), postId);
+    }
+
+    private NotificationOutbox.Entry entry(NotificationEvent event) {
+        return new NotificationOutbox.Entry(event, NotificationOutbox.NO_SEGMENT);
+    }
+
+    private User saveUser(String nickname) {
+        return userRepository.save(User.builder()
+                .phone(String.format("%011d", Math.floorMod(System.nanoTime(), 100_000_000_000L)))
+                .nickname(nickname)
+                .build());
+    }
+}
@@ -50,6 +50,12 @@ class PostServiceTests {
     @Mock
     private PostFavoriteRepository postFavoriteRepository;
 
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ImageDerivativeRepository imageDerivativeRepository;
+
     @InjectMocks
     private PostService postService;
 
@@ -279,6 +285,8 @@ class PostServiceTests {
         verify(postLikeRepository).save(any());
         verify(postRepository).save(post);
         assertThat(post.getLikesCount()).isEqualTo(1);
+        verify(notificationService).createNotification(testUser.getId(), NotificationTemplate.POST_LIKE, userId, postId);
+        verify(userRepository, never()).findById(userId);
     }
 
     @Test
@@ -0,0 +1,131 @@
+package com.allesgut.service;
+
+import com.allesgut.config.SmsProperties;
+import com.allesgut.exception.SmsDeliveryException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmsDispatcherTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SmsDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void shouldDeliverThroughConfiguredProvider() throws Exception {
+        // Given
+        SmsProperties properties = properties();
+        properties.setProvider(InMemorySmsProvider.NAME);
+        InMemorySmsProvider provider = new InMemorySmsProvider(properties);
+        dispatcher = new SmsDispatcher(List.of(provider), properties, meterRegistry);
+        dispatcher.start();
+
+        // When
+        dispatcher.dispatch("13800138000", "code 123456");
+
+        // Then
+        awaitTrue(() -> !provider.sentMessages().isEmpty());
+        assertThat(provider.sentMessages())
+                .containsExactly(new InMemorySmsProvider.SentMessage("13800138000", "code 123456"));
+    }
+
+    @Test
+    void shouldRetryRetryableFailures() throws Exception {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        SmsProvider flaky = provider((phone, text) -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SmsDeliveryException("gateway timeout", true, null);
+            }
+        });
+        dispatcher = new SmsDispatcher(List.of(flaky), properties(), meterRegistry);
+        dispatcher.start();
+
+        // When
+        dispatcher.dispatch("13800138000", "code 123456");
+
+        // Then
+        awaitTrue(() -> meterRegistry.counter("sms.dispatch", "outcome", "sent").count() == 1);
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("sms.dispatch", "outcome", "retried").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotRetryPermanentFailures() throws Exception {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        SmsProvider rejecting = provider((phone, text) -> {
+            attempts.incrementAndGet();
+            throw new SmsDeliveryException("invalid number", false, null);
+        });
+        dispatcher = new SmsDispatcher(List.of(rejecting), properties(), meterRegistry);
+        dispatcher.start();
+
+        // When
+        dispatcher.dispatch("13800138000", "code 123456");
+
+        // Then
+        awaitTrue(() -> meterRegistry.counter("sms.dispatch", "outcome", "failed").count() == 1);
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCapBackoff() {
+        // Given
+        SmsProperties properties = properties();
+        properties.getDispatch().setInitialBackoff(Duration.ofSeconds(1));
+        properties.getDispatch().setMaxBackoff(Duration.ofSeconds(30));
+        dispatcher = new SmsDispatcher(List.of(provider((phone, text) -> {})), properties, meterRegistry);
+
+        // When/Then
+        assertThat(dispatcher.backoffMillis(1)).isBetween(500L, 1_000L);
+        assertThat(dispatcher.backoffMillis(3)).isBetween(2_000L, 4_000L);
+        assertThat(dispatcher.backoffMillis(30)).isBetween(15_000L, 30_000L);
+    }
+
+    private static SmsProperties properties() {
+        SmsProperties properties = new SmsProperties();
+        properties.setProvider("test");
+        properties.getDispatch().setInitialBackoff(Duration.ofMillis(10));
+        properties.getDispatch().setMaxBackoff(Duration.ofMillis(50));
+        return properties;
+    }
+
+    private static SmsProvider provider(BiConsumer<String, String> send) {
+        return new SmsProvider() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public void send(String phone, String text) {
+                send.accept(phone, text);
+            }
+        };
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -1,12 +1,15 @@
 package com.allesgut.service;
 
+import com.allesgut.config.AuthProperties;
 import com.allesgut.entity.SmsVerificationCode;
+import com.allesgut.exception.SmsUnavailableException;
 import com.allesgut.repository.SmsVerificationCodeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -14,6 +17,9 @@ import java.time.LocalDateTime;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +28,12 @@ class SmsServiceTests {
     @Mock
     private SmsVerificationCodeRepository smsRepository;
 
+    @Spy
+    private VerificationCodeStore codeStore = new VerificationCodeStore(new AuthProperties());
+
+    @Mock
+    private SmsDispatcher smsDispatcher;
+
     @InjectMocks
     private SmsService smsService;
 
@@ -39,6 +51,18 @@ class SmsServiceTests {
         assertThat(code).hasSize(6);
         assertThat(code).matches("\\d{6}");
         verify(smsRepository).save(any(SmsVerificationCode.class));
+        verify(smsDispatcher).dispatch(eq(phone), contains(code));
+    }
+
+    @Test
+    void shouldRefuseToSendWhileDispatchIsSaturated() {
+        // Given
+        when(smsDispatcher.isSaturated()).thenReturn(true);
+
+        // When/Then
+        assertThatThrownBy(() -> smsService.sendVerificationCode("13800138000"))
+                .isInstanceOf(SmsUnavailableException.class);
+        verify(smsRepository, never()).save(any(SmsVerificationCode.class));
     }
 
     @Test
@@ -58,6 +82,7 @@ class SmsServiceTests {
         String phone = "13800138000";
         String code = "123456";
         SmsVerificationCode smsCode = SmsVerificationCode.builder()
+                .id(7L)
                 .phone(phone)
                 .code(code)
                 .expiresAt(LocalDateTime.now().plusMinutes(5))
@@ -66,14 +91,55 @@ class SmsServiceTests {
 
         when(smsRepository.findTopByPhoneAndCodeOrderByCreatedAtDesc(phone, code))
                 .thenReturn(java.util.Optional.of(smsCode));
+        when(smsRepository.markUsed(7L)).thenReturn(1);
 
         // When
         boolean result = smsService.verifyCode(phone, code);
 
         // Then
         assertThat(result).isTrue();
-        assertThat(smsCode.isUsed()).isTrue();
-        verify(smsRepository).save(smsCode);
+        verify(smsRepository).markUsed(7L);
+        verify(smsRepository, never()).save(any(SmsVerificationCode.class));
+    }
+
+    @Test
+    void shouldVerifyCodeSentThroughThisNodeWithoutLookup() {
+        // Given
+        String phone = "13800138000";
+        when(smsRepository.save(any(SmsVerificationCode.class))).thenAnswer(invocation -> {
+            SmsVerificationCode saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+        when(smsRepository.markUsed(42L)).thenReturn(1);
+        String code = smsService.sendVerificationCode(phone);
+
+        // When
+        boolean first = smsService.verifyCode(phone, code);
+
+        // Then
+        assertThat(first).isTrue();
+        verify(smsRepository, never()).findTopByPhoneAndCodeOrderByCreatedAtDesc(anyString(), anyString());
+        assertThat(codeStore.size()).isZero();
+    }
+
+    @Test
+    void shouldFailVerificationWhenCodeWasUsedThroughAnotherNode() {
+        // Given
+        String phone = "13800138000";
+        when(smsRepository.save(any(SmsVerificationCode.class))).thenAnswer(invocation -> {
+            SmsVerificationCode saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+        when(smsRepository.markUsed(42L)).thenReturn(0);
+        String code = smsService.sendVerificationCode(phone);
+
+        // When
+        boolean result = smsService.verifyCode(phone, code);
+
+        // Then
+        assertThat(result).isFalse();
     }
 
     @Test
@@ -82,6 +148,7 @@ class SmsServiceTests {
         String phone = "13800138000";
         String code = "123456";
         SmsVerificationCode smsCode = SmsVerificationCode.builder()
+                .id(7L)
                 .phone(phone)
                 .code(code)
                 .expiresAt(LocalDateTime.now().minusMinutes(1))
@@ -90,6 +157,7 @@ class SmsServiceTests {
 
         when(smsRepository.findTopByPhoneAndCodeOrderByCreatedAtDesc(phone, code))
                 .thenReturn(java.util.Optional.of(smsCode));
+        when(smsRepository.markUsed(7L)).thenReturn(0);
 
         // When
         boolean result = smsService.verifyCode(phone, code);
@@ -104,6 +172,7 @@ class SmsServiceTests {
         String phone = "13800138000";
         String code = "123456";
         SmsVerificationCode smsCode = SmsVerificationCode.builder()
+                .id(7L)
                 .phone(phone)
                 .code(code)
                 .expiresAt(LocalDateTime.now().plusMinutes(5))
@@ -112,6 +181,7 @@ class SmsServiceTests {
 
         when(smsRepository.findTopByPhoneAndCodeOrderByCreatedAtDesc(phone, code))
                 .thenReturn(java.util.Optional.of(smsCode));
+        when(smsRepository.markUsed(7L)).thenReturn(0);
 
         // When
         boolean result = smsService.verifyCode(phone, code);
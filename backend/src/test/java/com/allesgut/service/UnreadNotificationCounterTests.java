@@ -0,0 +1,89 @@
+package com.allesgut.service;
+
+import com.allesgut.config.NotificationProperties;
+import com.allesgut.repository.NotificationStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadNotificationCounterTests {
+
+    @Mock
+    private NotificationStateRepository notificationStateRepository;
+
+    private UnreadNotificationCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new UnreadNotificationCounter(notificationStateRepository, new NotificationProperties());
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromMemory() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(notificationStateRepository.findUnreadCount(userId)).thenReturn(Optional.of(3));
+
+        // When/Then
+        assertThat(counter.get(userId)).isEqualTo(3);
+        assertThat(counter.get(userId)).isEqualTo(3);
+        verify(notificationStateRepository, times(1)).findUnreadCount(userId);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(notificationStateRepository.findUnreadCount(userId)).thenReturn(Optional.of(3), Optional.of(4));
+        counter.get(userId);
+
+        // When
+        counter.invalidate(userId);
+
+        // Then
+        assertThat(counter.get(userId)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldTreatUsersWithoutStateAsHavingNoUnreadNotifications() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(notificationStateRepository.findUnreadCount(userId)).thenReturn(Optional.empty());
+
+        // When/Then
+        assertThat(counter.get(userId)).isZero();
+    }
+
+    @Test
+    void shouldReconcileUsersInBatchesAndWrapAround() {
+        // Given
+        NotificationProperties properties = new NotificationProperties();
+        properties.getUnread().setReconcileBatchSize(2);
+        counter = new UnreadNotificationCounter(notificationStateRepository, properties);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(notificationStateRepository.findUserIds(2)).thenReturn(List.of(first, second));
+        when(notificationStateRepository.findUserIdsAfter(second, 2)).thenReturn(List.of(third));
+
+        // When
+        counter.reconcile();
+        counter.reconcile();
+        counter.reconcile();
+
+        // Then
+        verify(notificationStateRepository, times(2)).reconcileUnreadCounts(List.of(first, second));
+        verify(notificationStateRepository).reconcileUnreadCounts(List.of(third));
+        verify(notificationStateRepository, times(2)).findUserIds(2);
+    }
+}